@@ -0,0 +1,310 @@
+package com.spaceagle17.iris_shader_folder;
+
+import com.spaceagle17.iris_shader_folder.rule.SourcePosition;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The config file read once into memory. Section markers (filterStart:[ ... ]:filterEnd),
+ * plain properties and comment blocks are indexed with their line ranges so all getters
+ * are served without touching the file again.
+ */
+public final class ConfigDocument {
+    public static final ConfigDocument EMPTY = new ConfigDocument(new byte[0]);
+
+    private static final String START_SUFFIX = "Start:[";
+    private static final String END_PREFIX = "]:";
+    private static final String END_SUFFIX = "End";
+
+    private final List<String> lines;
+    private final byte[] contentHash;
+    private final Properties properties = new Properties();
+    // Section name -> line indexes of its start (positive) and end (negative, ~index) markers
+    private final Map<String, List<Integer>> sectionMarkers = new HashMap<>();
+    private final Map<String, LineRange> propertyRanges = new HashMap<>();
+    private final List<LineRange> commentRanges = new ArrayList<>();
+
+    private ConfigDocument(byte[] content) {
+        this.lines = Collections.unmodifiableList(splitLines(new String(content, StandardCharsets.UTF_8)));
+        this.contentHash = hash(content);
+        try {
+            // Properties files are ISO-8859-1, same as Properties.load(InputStream) on the file
+            properties.load(new ByteArrayInputStream(content));
+        } catch (IOException | IllegalArgumentException e) {
+            IrisShaderFolder.LOGGER.error("Error loading properties: " + e.getMessage());
+        }
+        index();
+    }
+
+    /**
+     * Reads the file with a single read, a missing file gives an empty document.
+     */
+    public static ConfigDocument read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return EMPTY;
+        }
+        return new ConfigDocument(Files.readAllBytes(path));
+    }
+
+    public static ConfigDocument of(List<String> lines) {
+        return new ConfigDocument(encode(lines));
+    }
+
+    static ConfigDocument of(byte[] content) {
+        return new ConfigDocument(content);
+    }
+
+    /**
+     * The file content for the given lines, laid out the same way as Files.write
+     */
+    static byte[] encode(List<String> lines) {
+        StringBuilder content = new StringBuilder();
+        for (String line : lines) {
+            content.append(line).append(System.lineSeparator());
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> splitLines(String content) {
+        List<String> result = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(content))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                result.add(line);
+            }
+        } catch (IOException ignored) {
+            // Cannot happen for a StringReader
+        }
+        return result;
+    }
+
+    private void index() {
+        Set<String> openSections = new HashSet<>();
+        int commentStart = -1;
+        int i = 0;
+        while (i < lines.size()) {
+            String trimmed = lines.get(i).trim();
+
+            boolean comment = trimmed.startsWith("#") || trimmed.startsWith("!");
+            if (comment && commentStart == -1) {
+                commentStart = i;
+            } else if (!comment && commentStart != -1) {
+                commentRanges.add(new LineRange(commentStart, i));
+                commentStart = -1;
+            }
+
+            if (trimmed.endsWith(START_SUFFIX)) {
+                String sectionName = trimmed.substring(0, trimmed.length() - START_SUFFIX.length());
+                addMarker(sectionName, i);
+                openSections.add(sectionName);
+            } else if (trimmed.startsWith(END_PREFIX) && trimmed.endsWith(END_SUFFIX)
+                    && trimmed.length() >= END_PREFIX.length() + END_SUFFIX.length()) {
+                String sectionName = trimmed.substring(END_PREFIX.length(), trimmed.length() - END_SUFFIX.length());
+                addMarker(sectionName, ~i);
+                openSections.remove(sectionName);
+            } else if (!comment && !trimmed.isEmpty() && openSections.isEmpty()) {
+                int end = i + 1;
+                while (end < lines.size() && continuesOnNextLine(lines.get(end - 1))) {
+                    end++;
+                }
+                String key = propertyKey(trimmed);
+                if (!propertyRanges.containsKey(key)) {
+                    propertyRanges.put(key, new LineRange(i, end));
+                }
+                i = end;
+                continue;
+            }
+            i++;
+        }
+        if (commentStart != -1) {
+            commentRanges.add(new LineRange(commentStart, lines.size()));
+        }
+    }
+
+    private void addMarker(String sectionName, int marker) {
+        List<Integer> markers = sectionMarkers.get(sectionName);
+        if (markers == null) {
+            markers = new ArrayList<>(2);
+            sectionMarkers.put(sectionName, markers);
+        }
+        markers.add(marker);
+    }
+
+    // An odd number of trailing backslashes continues a property value on the next line
+    private static boolean continuesOnNextLine(String line) {
+        int backslashes = 0;
+        for (int i = line.length() - 1; i >= 0 && line.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    private static String propertyKey(String trimmed) {
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '=' || c == ':' || Character.isWhitespace(c)) {
+                return trimmed.substring(0, i);
+            }
+        }
+        return trimmed;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * SHA-256 of the file content this document was built from
+     */
+    public byte[] getContentHash() {
+        return contentHash.clone();
+    }
+
+    /**
+     * Whether the file content this document was built from hashes to the given value
+     */
+    public boolean hasContentHash(byte[] hash) {
+        return Arrays.equals(contentHash, hash);
+    }
+
+    public boolean hasProperty(String name) {
+        return properties.containsKey(name);
+    }
+
+    public String getProperty(String name, String defaultValue) {
+        return properties.getProperty(name, defaultValue);
+    }
+
+    public Properties getProperties() {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    /**
+     * Lines of a top level key=value entry, or null if the key is not written as a plain line
+     */
+    public LineRange getPropertyRange(String name) {
+        return propertyRanges.get(name);
+    }
+
+    public List<LineRange> getCommentRanges() {
+        return Collections.unmodifiableList(commentRanges);
+    }
+
+    public boolean hasSection(String sectionName) {
+        return sectionMarkers.containsKey(sectionName);
+    }
+
+    /**
+     * Content lines of a section, between its start marker and the next end marker.
+     * A start marker without an end marker runs to the end of the file.
+     */
+    public List<LineRange> getSectionRanges(String sectionName) {
+        List<Integer> markers = sectionMarkers.get(sectionName);
+        if (markers == null) {
+            return Collections.emptyList();
+        }
+
+        List<LineRange> ranges = new ArrayList<>(1);
+        int start = -1;
+        for (int marker : markers) {
+            if (marker >= 0) {
+                if (start != -1) {
+                    ranges.add(new LineRange(start, marker));
+                }
+                start = marker + 1;
+            } else if (start != -1) {
+                ranges.add(new LineRange(start, ~marker));
+                start = -1;
+            }
+        }
+        if (start != -1) {
+            ranges.add(new LineRange(start, lines.size()));
+        }
+        return ranges;
+    }
+
+    /**
+     * The trimmed content of a section, lines joined with \n
+     */
+    public String readSection(String sectionName) {
+        StringBuilder content = new StringBuilder();
+        for (LineRange range : getSectionRanges(sectionName)) {
+            for (int i = range.getStart(); i < range.getEnd(); i++) {
+                if (content.length() > 0) {
+                    content.append("\n");
+                }
+                content.append(lines.get(i).trim());
+            }
+        }
+        return content.toString();
+    }
+
+    /**
+     * All lines from a section that are not comments or empty, with their line numbers
+     */
+    public List<ConfigManager.SectionLine> getSectionLines(String sectionName) {
+        List<ConfigManager.SectionLine> items = new ArrayList<>();
+        for (LineRange range : getSectionRanges(sectionName)) {
+            for (int i = range.getStart(); i < range.getEnd(); i++) {
+                String raw = lines.get(i);
+                String line = raw.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    int column = raw.indexOf(line) + 1;
+                    items.add(new ConfigManager.SectionLine(line, new SourcePosition(sectionName, i + 1, column)));
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * A half-open range of 0-based line indexes
+     */
+    public static final class LineRange {
+        private final int start;
+        private final int end;
+
+        public LineRange(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package com.spaceagle17.iris_shader_folder;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import com.spaceagle17.iris_shader_folder.rule.SourcePosition;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Properties;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -16,10 +23,14 @@ import java.util.concurrent.TimeUnit;
 public class ConfigManager {
     private static final String CONFIG_FILENAME = "iris_shader_folder.properties";
     private static final Path CONFIG_PATH = Paths.get("config", CONFIG_FILENAME);
-    private static final Properties properties = new Properties();
-    private static FileTime lastModified = null;
+    private static volatile FileTime lastModified = null;
+    private static volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+    private static volatile ConfigDocument document = ConfigDocument.EMPTY;
     private static boolean watcherActive = false;
     private static ScheduledExecutorService scheduler;
+    private static WatchService watchService;
+    // Quiet period after the last file event before reloading
+    private static final long DEBOUNCE_MILLIS = 50;
 
     private static void debugLog(String message) {
         if (IrisShaderFolder.debugLoggingEnabled) {
@@ -27,309 +38,339 @@ public class ConfigManager {
         }
     }
 
-    public static void createConfig() {
-        try {
-            Files.createDirectories(CONFIG_PATH.getParent());
-            Files.createFile(CONFIG_PATH);
-            writeInitialConfig();
-            IrisShaderFolder.LOGGER.info("Successfully created config file");
-        } catch (IOException e) {
-            IrisShaderFolder.LOGGER.error("Error creating config file: " + e.getMessage());
-        }
+    /**
+     * The config as of the last completed reload. Cheap enough to call on every frame.
+     */
+    public static ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    static void publishSnapshot(ConfigSnapshot newSnapshot) {
+        snapshot = newSnapshot;
+        debugLog("Published config generation " + newSnapshot.getGeneration());
     }
 
-    private static void writeInitialConfig() throws IOException {
-        try (FileWriter writer = new FileWriter(CONFIG_PATH.toString(), false)) {
-            writer.write("# Iris Shader Folder - Configuration File\n");
-            writer.write("# Made for version " + IrisShaderFolder.VERSION + "\n");
-            writer.write("# Thank you for using Iris Shader Folder\n");
+    /**
+     * Reloads the config file and publishes a new snapshot. Serialized so concurrent
+     * reloads cannot interleave their reads and writes.
+     */
+    public static synchronized void reload() {
+        loadProperties();
+
+        IrisShaderFolder instance = IrisShaderFolder.getInstance();
+        if (instance != null) {
+            instance.loadConfigOptions();
         }
     }
 
+    public static void createConfig() {
+        beginTransaction().commit();
+    }
+
     public static void updateVersionLine() {
+        beginTransaction().commit();
+    }
+
+    public static void writeConfig(String option, String value, String description) {
+        ConfigTransaction transaction = beginTransaction();
+        transaction.writeConfig(option, value, description);
+        transaction.commit();
+    }
+
+    public static String readWriteConfig(String optionName, String defaultValue, String description) {
+        ConfigTransaction transaction = beginTransaction();
+        String value = transaction.readWriteConfig(optionName, defaultValue, description);
+        transaction.commit();
+        return value;
+    }
+
+    /**
+     * Writes a section to the config file
+     */
+    public static void writeSection(String sectionName, String content, String description) {
+        ConfigTransaction transaction = beginTransaction();
+        transaction.writeSection(sectionName, content, description);
+        transaction.commit();
+    }
+
+    /**
+     * Starts collecting edits on top of the config as last read or written
+     */
+    public static synchronized ConfigTransaction beginTransaction() {
+        return new ConfigTransaction(document, Files.exists(CONFIG_PATH));
+    }
+
+    /**
+     * Writes the transaction to a temp file next to the config and renames it over the config,
+     * so readers never see a half written file and the watcher sees a single change.
+     */
+    static synchronized void commit(ConfigTransaction transaction) {
+        if (!transaction.isModified()) return;
+
         try {
-            List<String> lines = Files.readAllLines(CONFIG_PATH, StandardCharsets.UTF_8);
-            boolean versionLineFound = false;
-
-            for (int i = 0; i < lines.size(); i++) {
-                if (lines.get(i).startsWith("# Made for version")) {
-                    if (lines.get(i).contains(IrisShaderFolder.VERSION)) return;
-                    lines.set(i, "# Made for version " + IrisShaderFolder.VERSION);
-                    versionLineFound = true;
-                    break;
-                }
+            if (transaction.getBase() != document || isChangedOnDisk()) {
+                // Someone edited the file since the transaction started, the watcher reloads
+                // it and the next load applies any missing defaults on top of those edits
+                debugLog("Config file changed during the update, not writing");
+                return;
             }
 
-            if (!versionLineFound) {
-                int headerIndex = lines.indexOf("# Iris Shader Folder - Configuration File");
-                if (headerIndex >= 0) {
-                    lines.add(headerIndex + 1, "# Made for version " + IrisShaderFolder.VERSION);
-                }
-            }
+            byte[] content = ConfigDocument.encode(transaction.getLines());
+            writeAtomically(CONFIG_PATH, content);
 
-            Files.write(CONFIG_PATH, lines, StandardCharsets.UTF_8);
-            debugLog("Successfully updated version info in config file");
+            // Remember what we wrote so the watcher does not reload our own write
+            lastModified = Files.getLastModifiedTime(CONFIG_PATH);
+            document = ConfigDocument.of(content);
+            debugLog("Successfully wrote config file");
         } catch (IOException e) {
-            IrisShaderFolder.LOGGER.error("Error updating config file with version: " + e.getMessage());
+            IrisShaderFolder.LOGGER.error("Error writing to config file: " + e.getMessage());
         }
     }
 
-    public static void writeConfig(String option, String value, String description) {
+    /**
+     * Replaces a file by renaming a fully written temp file over it
+     */
+    static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        // Not Files.createTempFile, that would give the file owner-only permissions
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
         try {
-            if (!Files.exists(CONFIG_PATH)) {
-                createConfig();
-            } else {
-                updateVersionLine();
-            }
-            
-            loadProperties();
-            
-            if (!properties.containsKey(option)) {
-                List<String> lines = Files.readAllLines(CONFIG_PATH, StandardCharsets.UTF_8);
-                try (FileWriter writer = new FileWriter(CONFIG_PATH.toString(), false)) {
-                    // Write existing lines
-                    for (String line : lines) {
-                        writer.write(line + "\n");
-                    }
-
-                    // Add new configuration
-                    writer.write("\n"); // Add newline before new entry
-                    if (description != null) {
-                        String[] descLines = description.split("\n");
-                        for (String line : descLines) {
-                            writer.write("# " + line + "\n");
-                        }
-                    }
-                    writer.write(option + "=" + value + "\n");
-                    debugLog("Successfully wrote to config file: " + option + "=" + value);
-                }
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
             }
-        } catch (IOException e) {
-            IrisShaderFolder.LOGGER.error("Error writing to config file: " + e.getMessage());
+        } finally {
+            Files.deleteIfExists(temp);
         }
     }
 
-    public static String readWriteConfig(String optionName, String defaultValue, String description) {
-        writeConfig(optionName, defaultValue, description);
-        return properties.getProperty(optionName, defaultValue);
+    /**
+     * A file next to the config file
+     */
+    static Path getConfigSibling(String fileName) {
+        return CONFIG_PATH.resolveSibling(fileName);
+    }
+
+    private static boolean isChangedOnDisk() throws IOException {
+        if (!Files.exists(CONFIG_PATH)) {
+            return document != ConfigDocument.EMPTY;
+        }
+        return !Files.getLastModifiedTime(CONFIG_PATH).equals(lastModified);
     }
 
+    /**
+     * Reads the config file into memory, this is the only place the file is read
+     */
     public static void loadProperties() {
         try {
             if (!Files.exists(CONFIG_PATH)) {
-                createConfig();
+                // The next transaction creates the file together with the default options
+                document = ConfigDocument.EMPTY;
+                lastModified = null;
                 return;
             }
             
-            try (InputStream in = Files.newInputStream(CONFIG_PATH)) {
-                properties.clear();
-                properties.load(in);
-                lastModified = Files.getLastModifiedTime(CONFIG_PATH);
-            }
+            // Take the time first so a write during the read is seen as a change later
+            FileTime modified = Files.getLastModifiedTime(CONFIG_PATH);
+            document = ConfigDocument.read(CONFIG_PATH);
+            lastModified = modified;
         } catch (IOException e) {
             IrisShaderFolder.LOGGER.error("Error loading properties: " + e.getMessage());
         }
     }
 
     /**
-     * Writes a section to the config file
+     * Reloads only if the file content differs from what was last read or written.
+     * A changed time with the same content, like our own rename, just updates the time.
      */
-    public static void writeSection(String sectionName, String content, String description) {
-        try {
-            if (!Files.exists(CONFIG_PATH)) {
-                createConfig();
-            }
-            
-            List<String> lines = Files.readAllLines(CONFIG_PATH, StandardCharsets.UTF_8);
-            String startMarker = sectionName + "Start:[";
-            String endMarker = "]:" + sectionName + "End";
-            
-            int startIndex = -1;
-            int endIndex = -1;
-            
-            // Find existing section
-            for (int i = 0; i < lines.size(); i++) {
-                if (lines.get(i).trim().equals(startMarker)) {
-                    startIndex = i;
-                } else if (lines.get(i).trim().equals(endMarker) && startIndex != -1) {
-                    endIndex = i;
-                    break;
-                }
-            }
-            
-            // Check if content is already the same (to avoid unnecessary writes)
-            if (startIndex != -1 && endIndex != -1) {
-                StringBuilder existingContent = new StringBuilder();
-                for (int i = startIndex + 1; i < endIndex; i++) {
-                    if (existingContent.length() > 0) {
-                        existingContent.append("\n");
-                    }
-                    existingContent.append(lines.get(i));
-                }
-                
-                // If content is the same, don't rewrite
-                if (existingContent.toString().equals(String.join("\n", content.split("\n")))) {
-                    return;
-                }
-            }
-            
-            // Create a new list for the updated content
-            List<String> newLines = new ArrayList<>();
-            
-            if (startIndex != -1 && endIndex != -1) {
-                // Section exists, update it
-                newLines.addAll(lines.subList(0, startIndex));
-                newLines.add(startMarker);
-                for (String line : content.split("\n")) {
-                    newLines.add(line);
-                }
-                newLines.add(endMarker);
-                if (endIndex + 1 < lines.size()) {
-                    newLines.addAll(lines.subList(endIndex + 1, lines.size()));
-                }
-            } else {
-                // Section doesn't exist, add it at the end
-                newLines.addAll(lines);
-                
-                if (newLines.size() > 0 && !newLines.get(newLines.size() - 1).trim().isEmpty()) {
-                    newLines.add(""); // Add empty line before new section
-                }
-                
-                // Add description
-                newLines.add("#--------------------------------------------------------------------------------");
-                if (description != null) {
-                    for (String line : description.split("\n")) {
-                        newLines.add("# " + line);
-                    }
-                    newLines.add("");
-                }
-                
-                // Add the section
-                newLines.add(startMarker);
-                for (String line : content.split("\n")) {
-                    newLines.add(line);
-                }
-                newLines.add(endMarker);
-            }
-            
-            // Write the updated file
-            Files.write(CONFIG_PATH, newLines, StandardCharsets.UTF_8);
-            lastModified = Files.getLastModifiedTime(CONFIG_PATH);
-            
-            debugLog("Successfully wrote section: " + sectionName);
-        } catch (IOException e) {
-            IrisShaderFolder.LOGGER.error("Error writing section to config: " + e.getMessage());
+    private static synchronized boolean reloadIfChanged() throws IOException {
+        if (!Files.exists(CONFIG_PATH)) return false;
+
+        FileTime modified = Files.getLastModifiedTime(CONFIG_PATH);
+        if (modified.equals(lastModified)) return false;
+
+        byte[] content = Files.readAllBytes(CONFIG_PATH);
+        if (document.hasContentHash(ConfigDocument.hash(content))) {
+            lastModified = modified;
+            return false;
         }
+
+        debugLog("Config file changed, reloading settings");
+        document = ConfigDocument.of(content);
+        lastModified = modified;
+
+        IrisShaderFolder instance = IrisShaderFolder.getInstance();
+        if (instance != null) {
+            instance.loadConfigOptions();
+        }
+        return true;
     }
-    
+
+    /**
+     * The config file as last read or written
+     */
+    public static ConfigDocument getDocument() {
+        return document;
+    }
+
     /**
      * Reads a section from the config file
      */
     public static String readSection(String sectionName) {
-        try {
-            if (!Files.exists(CONFIG_PATH)) {
-                return "";
-            }
-            
-            List<String> lines = Files.readAllLines(CONFIG_PATH, StandardCharsets.UTF_8);
-            String startMarker = sectionName + "Start:[";
-            String endMarker = "]:" + sectionName + "End";
-            
-            boolean inSection = false;
-            StringBuilder content = new StringBuilder();
-            
-            for (String line : lines) {
-                line = line.trim();
-                
-                if (line.equals(startMarker)) {
-                    inSection = true;
-                } else if (line.equals(endMarker)) {
-                    inSection = false;
-                } else if (inSection) {
-                    if (content.length() > 0) {
-                        content.append("\n");
-                    }
-                    content.append(line);
-                }
-            }
-            
-            return content.toString();
-        } catch (IOException e) {
-            IrisShaderFolder.LOGGER.error("Error reading section from config: " + e.getMessage());
-            return "";
-        }
+        return document.readSection(sectionName);
     }
     
     /**
      * Gets all lines from a section that are not comments or empty
      */
     public static List<String> getSectionItems(String sectionName) {
-        String sectionContent = readSection(sectionName);
         List<String> items = new ArrayList<>();
-        
-        for (String line : sectionContent.split("\n")) {
-            line = line.trim();
-            if (!line.isEmpty() && !line.startsWith("#")) {
-                items.add(line);
-            }
+        for (SectionLine line : getSectionLines(sectionName)) {
+            items.add(line.getText());
         }
-        
         return items;
     }
+
+    /**
+     * Gets all lines from a section that are not comments or empty, with their line numbers
+     */
+    public static List<SectionLine> getSectionLines(String sectionName) {
+        return document.getSectionLines(sectionName);
+    }
+
+    /**
+     * A trimmed, non-comment line of a config section and where it was found
+     */
+    public static class SectionLine {
+        private final String text;
+        private final SourcePosition position;
+
+        public SectionLine(String text, SourcePosition position) {
+            this.text = text;
+            this.position = position;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public SourcePosition getPosition() {
+            return position;
+        }
+    }
     
-    public static void startConfigWatcher() {
+    public static synchronized void startConfigWatcher() {
         if (watcherActive) return;
 
         watcherActive = true;
-        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread thread = new Thread(r, "IrisShaderFolderConfigWatcher");
+        if (!startWatchService()) {
+            startPollingWatcher();
+        }
+    }
+
+    /**
+     * Watches the config directory so edits are picked up right away.
+     * Returns false if the file system does not support watching.
+     */
+    private static boolean startWatchService() {
+        try {
+            Path directory = CONFIG_PATH.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            WatchService service = directory.getFileSystem().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            watchService = service;
+            Thread thread = new Thread(() -> runWatchService(service), "IrisShaderFolderConfigWatcher");
             thread.setDaemon(true);
-            return thread;
-        });
+            thread.start();
+            debugLog("Watching the config directory for changes");
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            debugLog("Cannot watch the config directory, polling instead: " + e.getMessage());
+            return false;
+        }
+    }
 
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                if (Files.exists(CONFIG_PATH)) {
-                    FileTime currentModified = Files.getLastModifiedTime(CONFIG_PATH);
-                    if (lastModified == null || !currentModified.equals(lastModified)) {
-                        debugLog("Config file changed, reloading settings");
-                        loadProperties();
-                        
-                        IrisShaderFolder instance = IrisShaderFolder.getInstance();
-                        if (instance != null) {
-                            instance.loadConfigOptions();
-                        }
+    private static void runWatchService(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean configChanged = isConfigEvent(key);
+                if (!key.reset()) {
+                    fallBackToPolling();
+                    return;
+                }
+                if (!configChanged) continue;
+
+                // Editors often write a file several times per save, wait until the events stop
+                WatchKey next;
+                while ((next = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isConfigEvent(next);
+                    if (!next.reset()) {
+                        fallBackToPolling();
+                        return;
                     }
                 }
-            } catch (IOException ignored) {}
-        }, 10, 10, TimeUnit.SECONDS);
+
+                reloadIfModified();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // Watcher was stopped
+        }
     }
-    
-    public static void stopConfigWatcher() {
-        if (watcherActive && scheduler != null) {
-            scheduler.shutdown();
-            watcherActive = false;
+
+    private static boolean isConfigEvent(WatchKey key) {
+        boolean configChanged = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                configChanged = true;
+            } else if (event.context() instanceof Path
+                    && CONFIG_FILENAME.equals(((Path) event.context()).getFileName().toString())) {
+                configChanged = true;
+            }
         }
+        return configChanged;
     }
 
-    public static boolean checkForUpdates() {
+    private static synchronized void fallBackToPolling() {
+        debugLog("Config directory can no longer be watched, polling instead");
+        if (watcherActive) {
+            startPollingWatcher();
+        }
+    }
+
+    private static void startPollingWatcher() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "IrisShaderFolderConfigWatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleAtFixedRate(ConfigManager::reloadIfModified, 10, 10, TimeUnit.SECONDS);
+    }
+
+    private static void reloadIfModified() {
         try {
-            if (Files.exists(CONFIG_PATH)) {
-                FileTime currentModified = Files.getLastModifiedTime(CONFIG_PATH);
-                if (lastModified == null || !currentModified.equals(lastModified)) {
-                    loadProperties();
-                    
-                    IrisShaderFolder instance = IrisShaderFolder.getInstance();
-                    if (instance != null) {
-                        instance.loadConfigOptions();
-                    }
-                    
-                    return true;
-                }
-            }
-        } catch (IOException e) {
-            IrisShaderFolder.LOGGER.error("Error checking for config updates: " + e.getMessage());
+            reloadIfChanged();
+        } catch (IOException ignored) {}
+    }
+    
+    public static synchronized void stopConfigWatcher() {
+        if (!watcherActive) return;
+
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {}
+            watchService = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
         }
-        return false;
+        watcherActive = false;
     }
 }
\ No newline at end of file
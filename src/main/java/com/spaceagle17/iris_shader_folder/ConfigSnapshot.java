@@ -0,0 +1,75 @@
+package com.spaceagle17.iris_shader_folder;
+
+import com.spaceagle17.iris_shader_folder.rule.RuleSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable result of one config load. ConfigManager publishes a new snapshot after every
+ * reload, so readers always see either the old or the new config, never a mix of both.
+ */
+public final class ConfigSnapshot {
+    public static final ConfigSnapshot EMPTY = new ConfigSnapshot(false,
+        Collections.<String>emptyList(), Collections.<String>emptyList(),
+        Collections.<String>emptyList(), Collections.<String>emptyList(), RuleSet.EMPTY, new byte[0]);
+
+    private final boolean debugLogging;
+    private final List<String> filterPatterns;
+    private final List<String> reorderPatterns;
+    private final List<String> recolorPatterns;
+    private final List<String> tooltipPatterns;
+    private final RuleSet ruleSet;
+    private final byte[] configHash;
+
+    public ConfigSnapshot(boolean debugLogging, List<String> filterPatterns, List<String> reorderPatterns,
+                          List<String> recolorPatterns, List<String> tooltipPatterns, RuleSet ruleSet,
+                          byte[] configHash) {
+        this.debugLogging = debugLogging;
+        this.filterPatterns = Collections.unmodifiableList(new ArrayList<>(filterPatterns));
+        this.reorderPatterns = Collections.unmodifiableList(new ArrayList<>(reorderPatterns));
+        this.recolorPatterns = Collections.unmodifiableList(new ArrayList<>(recolorPatterns));
+        this.tooltipPatterns = Collections.unmodifiableList(new ArrayList<>(tooltipPatterns));
+        this.ruleSet = ruleSet;
+        this.configHash = configHash.clone();
+    }
+
+    /**
+     * Increases with every reload, same as the generation of the RuleSet
+     */
+    public int getGeneration() {
+        return ruleSet.getGeneration();
+    }
+
+    public boolean isDebugLogging() {
+        return debugLogging;
+    }
+
+    public List<String> getFilterPatterns() {
+        return filterPatterns;
+    }
+
+    public List<String> getReorderPatterns() {
+        return reorderPatterns;
+    }
+
+    public List<String> getRecolorPatterns() {
+        return recolorPatterns;
+    }
+
+    public List<String> getTooltipPatterns() {
+        return tooltipPatterns;
+    }
+
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    /**
+     * SHA-256 of the config file content this snapshot was loaded from
+     */
+    public byte[] getConfigHash() {
+        return configHash.clone();
+    }
+}
@@ -0,0 +1,179 @@
+package com.spaceagle17.iris_shader_folder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects edits to the config file in memory. Reads see the pending edits,
+ * commit() writes all of them to the file at once.
+ */
+public final class ConfigTransaction {
+    static final String HEADER_LINE = "# Iris Shader Folder - Configuration File";
+    static final String VERSION_PREFIX = "# Made for version";
+
+    private final ConfigDocument base;
+    private final List<String> lines;
+    private ConfigDocument pending;
+
+    ConfigTransaction(ConfigDocument base, boolean fileExists) {
+        this.base = base;
+        if (fileExists) {
+            this.lines = new ArrayList<>(base.getLines());
+            this.pending = base;
+        } else {
+            this.lines = new ArrayList<>();
+            lines.add(HEADER_LINE);
+            lines.add(VERSION_PREFIX + " " + IrisShaderFolder.VERSION);
+            lines.add("# Thank you for using Iris Shader Folder");
+        }
+        updateVersionLine();
+    }
+
+    ConfigDocument getBase() {
+        return base;
+    }
+
+    List<String> getLines() {
+        return lines;
+    }
+
+    boolean isModified() {
+        return pending != base;
+    }
+
+    /**
+     * The config as it will be once the transaction is committed
+     */
+    public ConfigDocument getDocument() {
+        if (pending == null) {
+            pending = ConfigDocument.of(lines);
+        }
+        return pending;
+    }
+
+    private void changed() {
+        pending = null;
+    }
+
+    private void updateVersionLine() {
+        String versionLine = VERSION_PREFIX + " " + IrisShaderFolder.VERSION;
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).startsWith(VERSION_PREFIX)) {
+                if (!lines.get(i).contains(IrisShaderFolder.VERSION)) {
+                    lines.set(i, versionLine);
+                    changed();
+                }
+                return;
+            }
+        }
+
+        int headerIndex = lines.indexOf(HEADER_LINE);
+        if (headerIndex >= 0) {
+            lines.add(headerIndex + 1, versionLine);
+            changed();
+        }
+    }
+
+    /**
+     * Appends the option with its description if it is not in the config yet
+     */
+    public void writeConfig(String option, String value, String description) {
+        if (getDocument().hasProperty(option)) return;
+
+        lines.add(""); // Add newline before new entry
+        if (description != null) {
+            for (String line : description.split("\n")) {
+                lines.add("# " + line);
+            }
+        }
+        lines.add(option + "=" + value);
+        changed();
+    }
+
+    public String readWriteConfig(String optionName, String defaultValue, String description) {
+        writeConfig(optionName, defaultValue, description);
+        return getDocument().getProperty(optionName, defaultValue);
+    }
+
+    /**
+     * Replaces the content of a section, or adds the section with its description at the end
+     */
+    public void writeSection(String sectionName, String content, String description) {
+        String startMarker = sectionName + "Start:[";
+        String endMarker = "]:" + sectionName + "End";
+
+        int startIndex = -1;
+        int endIndex = -1;
+
+        // Find existing section
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).trim().equals(startMarker)) {
+                startIndex = i;
+            } else if (lines.get(i).trim().equals(endMarker) && startIndex != -1) {
+                endIndex = i;
+                break;
+            }
+        }
+
+        String[] contentLines = content.split("\n");
+
+        if (startIndex != -1 && endIndex != -1) {
+            // If content is the same, don't rewrite
+            List<String> existing = lines.subList(startIndex + 1, endIndex);
+            if (String.join("\n", existing).equals(String.join("\n", contentLines))) {
+                return;
+            }
+
+            // Section exists, update it
+            existing.clear();
+            lines.set(startIndex, startMarker);
+            int insertAt = startIndex + 1;
+            for (String line : contentLines) {
+                lines.add(insertAt++, line);
+            }
+            lines.set(insertAt, endMarker);
+        } else {
+            // Section doesn't exist, add it at the end
+            if (lines.size() > 0 && !lines.get(lines.size() - 1).trim().isEmpty()) {
+                lines.add(""); // Add empty line before new section
+            }
+
+            // Add description
+            lines.add("#--------------------------------------------------------------------------------");
+            if (description != null) {
+                for (String line : description.split("\n")) {
+                    lines.add("# " + line);
+                }
+                lines.add("");
+            }
+
+            // Add the section
+            lines.add(startMarker);
+            for (String line : contentLines) {
+                lines.add(line);
+            }
+            lines.add(endMarker);
+        }
+        changed();
+    }
+
+    public List<String> getSectionItems(String sectionName) {
+        List<String> items = new ArrayList<>();
+        for (ConfigManager.SectionLine line : getSectionLines(sectionName)) {
+            items.add(line.getText());
+        }
+        return items;
+    }
+
+    public List<ConfigManager.SectionLine> getSectionLines(String sectionName) {
+        return getDocument().getSectionLines(sectionName);
+    }
+
+    /**
+     * Writes all pending edits with a single atomic replace of the config file.
+     * Does nothing if nothing changed.
+     */
+    public void commit() {
+        ConfigManager.commit(this);
+    }
+}
@@ -1,5 +1,7 @@
 package com.spaceagle17.iris_shader_folder;
 
+import com.spaceagle17.iris_shader_folder.rule.RuleParser;
+import com.spaceagle17.iris_shader_folder.rule.RuleSet;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.loader.api.FabricLoader;
 import org.slf4j.Logger;
@@ -7,7 +9,6 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
 
 public class IrisShaderFolder implements ModInitializer {
@@ -17,26 +18,24 @@ public class IrisShaderFolder implements ModInitializer {
 
     public static Path shaderpacks = FabricLoader.getInstance().getGameDir().resolve("shaderpacks");
     private static IrisShaderFolder INSTANCE;
-    public static boolean debugLoggingEnabled = false;
-    public static List<String> filterPatterns = new ArrayList<>();
-    public static List<String> reorderPatterns = new ArrayList<>();
-    public static List<String> recolorPatterns = new ArrayList<>();
-    public static List<String> tooltipPatterns = new ArrayList<>();
+    public static volatile boolean debugLoggingEnabled = false;
 
     public static IrisShaderFolder getInstance() {
         return INSTANCE;
     }
 
     public void loadConfigOptions() {
-        // Define all your config options here in one place
-        debugLoggingEnabled = Boolean.parseBoolean(ConfigManager.readWriteConfig(
+        // Define all your config options here in one place, missing ones are written in one go
+        ConfigTransaction config = ConfigManager.beginTransaction();
+        boolean debugLogging = Boolean.parseBoolean(config.readWriteConfig(
             "debugLogging",
             "false",
             "Enable debug logging (creates a debug file with detailed pattern processing)"
         ));
+        debugLoggingEnabled = debugLogging;
 
         // Handle the filter patterns section in a dynamic way
-        if (ConfigManager.getSectionItems("filter").isEmpty()) {
+        if (config.getSectionItems("filter").isEmpty()) {
             // If the section doesn't exist or is empty, create it with example content
             String filterDescription =
                 "List of shader patterns to filter out, one per line\n" +
@@ -54,11 +53,11 @@ public class IrisShaderFolder implements ModInitializer {
                 "# Complementary\n" +
                 "# BSL{.*}";
 
-            ConfigManager.writeSection("filter", defaultContent, filterDescription);
+            config.writeSection("filter", defaultContent, filterDescription);
         }
-        filterPatterns = ConfigManager.getSectionItems("filter");
+        List<String> filterPatterns = config.getSectionItems("filter");
 
-        if (ConfigManager.getSectionItems("reorder").isEmpty()) {
+        if (config.getSectionItems("reorder").isEmpty()) {
             // If the section doesn't exist or is empty, create it with example content
             String reorderDescription =
                 "List of shaderpacks to reorder in the shaderpacks selection menu, one per line\n" +
@@ -78,11 +77,11 @@ public class IrisShaderFolder implements ModInitializer {
                 "# Complementary{.*}_r{version}\n" +
                 "# BSL{.*}";
 
-            ConfigManager.writeSection("reorder", defaultContent, reorderDescription);
+            config.writeSection("reorder", defaultContent, reorderDescription);
         }
-        reorderPatterns = ConfigManager.getSectionItems("reorder");
+        List<String> reorderPatterns = config.getSectionItems("reorder");
 
-        if (ConfigManager.getSectionItems("recolor").isEmpty()) {
+        if (config.getSectionItems("recolor").isEmpty()) {
             // If the section doesn't exist or is empty, create it with example content
             String recolorDescription = 
                 "List of recoloring rules for shaderpack names in the selection menu\n" +
@@ -113,12 +112,12 @@ public class IrisShaderFolder implements ModInitializer {
                 "# {.*}EuphoriaPatches{.*} [|] EuphoriaPatches_{version} [->] light_purple\n" +
                 "# test [|] {all} [->] red";
 
-            ConfigManager.writeSection("recolor", defaultContent, recolorDescription);
+            config.writeSection("recolor", defaultContent, recolorDescription);
         }
-        recolorPatterns = ConfigManager.getSectionItems("recolor");
+        List<String> recolorPatterns = config.getSectionItems("recolor");
         
         // Add new tooltip section
-        if (ConfigManager.getSectionItems("tooltip").isEmpty()) {
+        if (config.getSectionItems("tooltip").isEmpty()) {
             // If the section doesn't exist or is empty, create it with example content
             String tooltipDescription = 
                 "List of tooltip rules for shaderpacks in the selection menu\n" +
@@ -139,25 +138,45 @@ public class IrisShaderFolder implements ModInitializer {
                 "# Complementary{.*} [|] Complementary is a shaderpack focused on performance and visual quality.\n" +
                 "# test [|] This is a test shaderpack.";
 
-            ConfigManager.writeSection("tooltip", defaultContent, tooltipDescription);
+            config.writeSection("tooltip", defaultContent, tooltipDescription);
         }
-        tooltipPatterns = ConfigManager.getSectionItems("tooltip");
+        List<String> tooltipPatterns = config.getSectionItems("tooltip");
+
+        config.commit();
+
+        // Parse every section once, all systems share the resulting rules
+        RuleSet ruleSet = RuleParser.parse(
+            config.getSectionLines("filter"),
+            config.getSectionLines("reorder"),
+            config.getSectionLines("recolor"),
+            config.getSectionLines("tooltip"));
+
+        ConfigManager.publishSnapshot(new ConfigSnapshot(debugLogging,
+            filterPatterns, reorderPatterns, recolorPatterns, tooltipPatterns, ruleSet,
+            config.getDocument().getContentHash()));
+    }
+
+    /**
+     * The parsed rules of the current config snapshot
+     */
+    public static RuleSet getRuleSet() {
+        return ConfigManager.getSnapshot().getRuleSet();
     }
 
     public List<String> getFilterPatterns() {
-        return filterPatterns;
+        return ConfigManager.getSnapshot().getFilterPatterns();
     }
 
     public List<String> getReorderPatterns() {
-        return reorderPatterns;
+        return ConfigManager.getSnapshot().getReorderPatterns();
     }
 
     public List<String> getRecolorPatterns() {
-        return recolorPatterns;
+        return ConfigManager.getSnapshot().getRecolorPatterns();
     }
     
     public List<String> getTooltipPatterns() {
-        return tooltipPatterns;
+        return ConfigManager.getSnapshot().getTooltipPatterns();
     }
 
     @Override
@@ -0,0 +1,77 @@
+package com.spaceagle17.iris_shader_folder;
+
+import com.spaceagle17.iris_shader_folder.util.ShaderPatternUtil;
+import net.minecraft.ChatFormatting;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+
+/**
+ * Turns text with § formatting codes into a component with one styled part per run.
+ * A color starts a fresh style and formats are added to it, like § codes do, except that
+ * formats the parts do not set are inherited, so a style set on the whole name still applies.
+ * Minecraft versions before 1.19 lack the component methods used here, there the name is
+ * only drawn from its § code text.
+ */
+final class LegacyTextComponents {
+    // Set once building a component failed, so older versions do not retry every frame
+    private static volatile boolean unavailable = false;
+
+    private LegacyTextComponents() {
+    }
+
+    /**
+     * The styled component of the text, or null if this Minecraft version cannot build one
+     */
+    static Component parse(String text) {
+        if (unavailable) {
+            return null;
+        }
+        try {
+            return build(text);
+        } catch (Throwable e) {
+            unavailable = true;
+            ShaderPatternUtil.logDebug("Styled pack names are not supported here, using § codes: " + e);
+            return null;
+        }
+    }
+
+    private static Component build(String text) {
+        if (text.indexOf('§') < 0) {
+            return Component.literal(text);
+        }
+
+        MutableComponent result = Component.empty();
+        Style style = Style.EMPTY;
+        int runStart = 0;
+        int i = 0;
+        while (i < text.length()) {
+            ChatFormatting formatting = text.charAt(i) == '§' && i + 1 < text.length()
+                ? ChatFormatting.getByCode(text.charAt(i + 1))
+                : null;
+            if (formatting == null) {
+                i++;
+                continue;
+            }
+
+            appendRun(result, text, runStart, i, style);
+            if (formatting == ChatFormatting.RESET) {
+                style = Style.EMPTY;
+            } else if (formatting.isColor()) {
+                style = Style.EMPTY.applyFormat(formatting);
+            } else {
+                style = style.applyFormat(formatting);
+            }
+            i += 2;
+            runStart = i;
+        }
+        appendRun(result, text, runStart, text.length(), style);
+        return result;
+    }
+
+    private static void appendRun(MutableComponent result, String text, int start, int end, Style style) {
+        if (start < end) {
+            result.append(Component.literal(text.substring(start, end)).setStyle(style));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.spaceagle17.iris_shader_folder;
+
+import net.minecraft.network.chat.Component;
+
+import java.util.BitSet;
+
+/**
+ * Everything the rules decided about one shader pack name, produced by PackDecisionEngine
+ * in a single pass. Instances are immutable and belong to one config generation.
+ */
+public final class PackDecision {
+    private static final int[] NO_RULES = new int[0];
+
+    private final String name;
+    private final int generation;
+    private final boolean visible;
+    private final BitSet reorderMatches;
+    private final int[] recolorRuleIds;
+    private final String recoloredName;
+    private final int[] tooltipRuleIds;
+    // Built from the recolored name the first time an entry draws it
+    private volatile Component recoloredComponent;
+
+    PackDecision(String name, int generation, boolean visible, BitSet reorderMatches,
+                 BitSet recolorMatches, String recoloredName, BitSet tooltipMatches) {
+        this.name = name;
+        this.generation = generation;
+        this.visible = visible;
+        this.reorderMatches = (BitSet) reorderMatches.clone();
+        this.recolorRuleIds = toIds(recolorMatches);
+        this.recoloredName = recoloredName;
+        this.tooltipRuleIds = toIds(tooltipMatches);
+    }
+
+    private static int[] toIds(BitSet matches) {
+        return matches.isEmpty() ? NO_RULES : matches.stream().toArray();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The RuleSet generation this decision was computed for
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * False if a filter rule hides this pack
+     */
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * The reorder rule that finally places this pack, which is the last matching one, or -1
+     */
+    public int getReorderBucket() {
+        return reorderMatches.length() - 1;
+    }
+
+    public boolean matchesReorderRule(int ruleId) {
+        return reorderMatches.get(ruleId);
+    }
+
+    /**
+     * Ids of the reorder rules matching this pack, in config order
+     */
+    public int[] getReorderRuleIds() {
+        return toIds(reorderMatches);
+    }
+
+    /**
+     * Ids of the user recolor rules matching this pack, in config order
+     */
+    public int[] getRecolorRuleIds() {
+        return recolorRuleIds.clone();
+    }
+
+    public String getRecoloredName() {
+        return recoloredName;
+    }
+
+    /**
+     * The recolored name as styled text without § codes, so drawing it does not parse them
+     * again every frame. Shared, callers that change the style must copy it first.
+     * Null on Minecraft versions that cannot build styled components.
+     */
+    public Component getRecoloredComponent() {
+        Component component = recoloredComponent;
+        if (component == null) {
+            component = LegacyTextComponents.parse(recoloredName);
+            if (component == null) {
+                return null;
+            }
+            recoloredComponent = component;
+        }
+        return component;
+    }
+
+    /**
+     * Ids of the tooltip rules matching this pack, in config order
+     */
+    public int[] getTooltipRuleIds() {
+        return tooltipRuleIds.clone();
+    }
+
+    public boolean hasTooltipRules() {
+        return tooltipRuleIds.length > 0;
+    }
+}
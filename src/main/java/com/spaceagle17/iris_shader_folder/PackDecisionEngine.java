@@ -0,0 +1,256 @@
+package com.spaceagle17.iris_shader_folder;
+
+import com.spaceagle17.iris_shader_folder.rule.RecolorRule;
+import com.spaceagle17.iris_shader_folder.rule.RuleSet;
+import com.spaceagle17.iris_shader_folder.rule.ShaderPattern;
+import com.spaceagle17.iris_shader_folder.rule.TooltipRule;
+import com.spaceagle17.iris_shader_folder.util.BoundedCache;
+import com.spaceagle17.iris_shader_folder.util.MultiPatternMatcher;
+import com.spaceagle17.iris_shader_folder.util.ShaderPatternIndex;
+import com.spaceagle17.iris_shader_folder.util.ShaderPatternUtil;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs all rule sections against a pack name in one pass and memoizes the resulting
+ * PackDecision until the config is reloaded.
+ */
+public class PackDecisionEngine {
+    private static PackDecisionEngine INSTANCE;
+    // Per config generation; evicted decisions and models are simply computed again
+    private static final int MAX_DECISIONS = 4096;
+    private static final int MAX_DISPLAY_MODELS = 1024;
+
+    private volatile CompiledRules compiledRules;
+    private RefreshResult lastRefresh;
+    private final PackDecisionStore store = new PackDecisionStore();
+
+    private PackDecisionEngine() {
+        // Private constructor for singleton
+    }
+
+    public static PackDecisionEngine getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new PackDecisionEngine();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the decision for a pack name under the current rules, computing it on first use.
+     */
+    public PackDecision evaluate(String name) {
+        return evaluate(getCompiledRules(), name);
+    }
+
+    private static PackDecision evaluate(CompiledRules rules, String name) {
+        PackDecision decision = rules.decisions.get(name);
+        if (decision == null) {
+            decision = rules.evaluate(name);
+            rules.decisions.put(name, decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Returns the display model of a pack under the current rules. Models of listed packs are
+     * built by refreshPackList, so this only builds one for a pack that was not listed yet.
+     */
+    public PackDisplayModel getDisplayModel(String name) {
+        CompiledRules rules = getCompiledRules();
+        return rules.displayModels.get(name, n -> new PackDisplayModel(evaluate(rules, n)));
+    }
+
+    /**
+     * Filters and reorders the pack list of a shader pack screen refresh.
+     * Decisions of names seen before are reused, and an unchanged list under unchanged
+     * rules returns the previous result directly.
+     */
+    public synchronized List<String> refreshPackList(Collection<String> names) {
+        ShaderFilterSystem filterSystem = ShaderFilterSystem.getInstance();
+        filterSystem.updatePatterns();
+
+        CompiledRules rules = getCompiledRules();
+        boolean spacEagle = IrisShaderFolder.isSpacEagle();
+        List<String> nameList = new ArrayList<>(names);
+
+        RefreshResult last = lastRefresh;
+        if (last != null && last.rules == rules && last.spacEagle == spacEagle && last.names.equals(nameList)) {
+            ShaderPatternUtil.logDebug("Pack list unchanged, reusing the previous order of " + last.result.size() + " packs");
+            return new ArrayList<>(last.result);
+        }
+
+        if (!rules.storeChecked) {
+            // First refresh under these rules, a previous game session may have stored the decisions
+            rules.storeChecked = true;
+            Map<String, PackDecision> stored = store.load(rules.configHash, nameList, rules.ruleSet);
+            if (stored != null) {
+                for (Map.Entry<String, PackDecision> entry : stored.entrySet()) {
+                    rules.decisions.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        int evaluated = 0;
+        List<String> visible = new ArrayList<>(nameList.size());
+        Map<String, PackDecision> decisions = new HashMap<>();
+        for (String name : nameList) {
+            PackDecision decision = rules.decisions.get(name);
+            if (decision == null) {
+                decision = rules.evaluate(name);
+                rules.decisions.put(name, decision);
+                evaluated++;
+            }
+            decisions.put(name, decision);
+
+            if (decision.isVisible()) {
+                visible.add(name);
+                // Only the model is created here, its components once an entry draws it
+                if (!rules.displayModels.containsKey(name)) {
+                    rules.displayModels.putIfAbsent(name, new PackDisplayModel(decision));
+                }
+            } else {
+                filterSystem.logFilteredPack(name);
+            }
+        }
+
+        List<String> result = ShaderReorderSystem.getInstance().reorderShaderPacks(visible, decisions, spacEagle);
+        lastRefresh = new RefreshResult(rules, spacEagle, nameList, new ArrayList<>(result));
+        if (evaluated > 0) {
+            store.save(rules.configHash, nameList, decisions.values());
+        }
+        ShaderPatternUtil.logDebug("Refreshed " + nameList.size() + " packs, " + evaluated + " evaluated for the first time");
+        return result;
+    }
+
+    /**
+     * Hit, miss and eviction counts of the decision and display model caches of the current rules
+     */
+    public String describeCacheStats() {
+        CompiledRules rules = getCompiledRules();
+        return rules.decisions.describeStats() + "\n" + rules.displayModels.describeStats();
+    }
+
+    /**
+     * The filter matcher for the current rules
+     */
+    public MultiPatternMatcher getFilterMatcher() {
+        return getCompiledRules().getMatchers().filterMatcher;
+    }
+
+    private CompiledRules getCompiledRules() {
+        ConfigSnapshot snapshot = ConfigManager.getSnapshot();
+        CompiledRules rules = compiledRules;
+        if (rules == null || rules.generation != snapshot.getGeneration()) {
+            synchronized (this) {
+                rules = compiledRules;
+                if (rules == null || rules.generation != snapshot.getGeneration()) {
+                    rules = new CompiledRules(snapshot);
+                    compiledRules = rules;
+                }
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Input and output of the last pack list refresh
+     */
+    private static final class RefreshResult {
+        private final CompiledRules rules;
+        private final boolean spacEagle;
+        private final List<String> names;
+        private final List<String> result;
+
+        RefreshResult(CompiledRules rules, boolean spacEagle, List<String> names, List<String> result) {
+            this.rules = rules;
+            this.spacEagle = spacEagle;
+            this.names = names;
+            this.result = result;
+        }
+    }
+
+    /**
+     * The rules of one config snapshot together with the decisions computed from them.
+     * The matchers are only compiled once a pack actually has to be evaluated.
+     */
+    private static final class CompiledRules {
+        private final RuleSet ruleSet;
+        private final int generation;
+        private final byte[] configHash;
+        private final BoundedCache<String, PackDecision> decisions = BoundedCache.ofSize("Pack decisions", MAX_DECISIONS);
+        private final BoundedCache<String, PackDisplayModel> displayModels = BoundedCache.ofSize("Display models", MAX_DISPLAY_MODELS);
+        private volatile Matchers matchers;
+        // Guarded by the engine, true once the stored decisions were looked at
+        private boolean storeChecked;
+
+        CompiledRules(ConfigSnapshot snapshot) {
+            this.ruleSet = snapshot.getRuleSet();
+            this.generation = ruleSet.getGeneration();
+            this.configHash = snapshot.getConfigHash();
+        }
+
+        Matchers getMatchers() {
+            Matchers result = matchers;
+            if (result == null) {
+                synchronized (this) {
+                    result = matchers;
+                    if (result == null) {
+                        result = new Matchers(ruleSet);
+                        matchers = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        PackDecision evaluate(String name) {
+            Matchers m = getMatchers();
+            boolean visible = !m.filterMatcher.matchesAny(name);
+            BitSet reorderMatches = m.reorderIndex.matchAll(name);
+            BitSet recolorMatches = m.recolorIndex.matchAll(name);
+            String recoloredName = ShaderRecolorSystem.getInstance().applyRecolorRules(ruleSet, name, recolorMatches);
+            BitSet tooltipMatches = m.tooltipIndex.matchAll(name);
+
+            return new PackDecision(name, ruleSet.getGeneration(), visible, reorderMatches,
+                recolorMatches, recoloredName, tooltipMatches);
+        }
+    }
+
+    /**
+     * The matchers of one RuleSet
+     */
+    private static final class Matchers {
+        private final MultiPatternMatcher filterMatcher;
+        private final ShaderPatternIndex reorderIndex;
+        private final ShaderPatternIndex recolorIndex;
+        private final ShaderPatternIndex tooltipIndex;
+
+        Matchers(RuleSet ruleSet) {
+            this.filterMatcher = MultiPatternMatcher.compile(ruleSet.getFilterPatterns());
+            this.reorderIndex = ShaderPatternIndex.build(ruleSet.getReorderPatterns());
+
+            List<ShaderPattern> recolorPatterns = new ArrayList<>();
+            for (RecolorRule rule : ruleSet.getRecolorRules()) {
+                recolorPatterns.add(rule.getShaderPattern());
+            }
+            this.recolorIndex = ShaderPatternIndex.build(recolorPatterns);
+
+            List<ShaderPattern> tooltipPatterns = new ArrayList<>();
+            for (TooltipRule rule : ruleSet.getTooltipRules()) {
+                tooltipPatterns.add(rule.getShaderPattern());
+            }
+            this.tooltipIndex = ShaderPatternIndex.build(tooltipPatterns);
+
+            ShaderPatternUtil.logDebug("Compiled rules of generation " + ruleSet.getGeneration()
+                + " (reorder " + reorderIndex.describeTiers()
+                + "; recolor " + recolorIndex.describeTiers()
+                + "; tooltip " + tooltipIndex.describeTiers() + ")");
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.spaceagle17.iris_shader_folder;
+
+import com.spaceagle17.iris_shader_folder.rule.RuleSet;
+import com.spaceagle17.iris_shader_folder.util.ShaderPatternUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the pack decisions of the last shader screen refresh on disk, so the first refresh
+ * after a game start can skip compiling and evaluating the rules. The file is only used when
+ * the mod version, the config content and the shaderpacks listing are all unchanged.
+ * The file ends with a CRC32 and every stored rule id is checked against the current rules,
+ * a damaged file is ignored as a whole.
+ */
+final class PackDecisionStore {
+    private static final String CACHE_FILENAME = "iris_shader_folder.cache";
+    private static final int MAGIC = 0x49534643; // "ISFC"
+    private static final int FORMAT_VERSION = 3;
+    // Upper bound for stored array lengths, so a damaged file cannot make us allocate gigabytes
+    private static final int MAX_LENGTH = 1 << 20;
+
+    private final Path path;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "IrisShaderFolderDecisionStore");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    PackDecisionStore() {
+        this(ConfigManager.getConfigSibling(CACHE_FILENAME));
+    }
+
+    PackDecisionStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Returns the stored decisions if they were saved for the same config and pack names,
+     * otherwise null. The decisions are given the generation of the current rules.
+     */
+    Map<String, PackDecision> load(byte[] configHash, List<String> names, RuleSet ruleSet) {
+        try {
+            byte[] content = Files.readAllBytes(path);
+            if (content.length < 4 || checksum(content, content.length - 4) != ByteBuffer.wrap(content, content.length - 4, 4).getInt()) {
+                IrisShaderFolder.LOGGER.warn("Ignoring damaged pack decision cache " + path);
+                return null;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, 0, content.length - 4));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || !IrisShaderFolder.VERSION.equals(in.readUTF())
+                    || !Arrays.equals(configHash, readBytes(in))
+                    || !Arrays.equals(hashNames(names), readBytes(in))) {
+                ShaderPatternUtil.logDebug("Stored pack decisions are outdated, evaluating packs");
+                return null;
+            }
+
+            int count = readLength(in);
+            int generation = ruleSet.getGeneration();
+            Map<String, PackDecision> decisions = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                boolean visible = in.readBoolean();
+                BitSet reorderMatches = readRuleIds(in, ruleSet.getReorderPatterns().size());
+                BitSet recolorMatches = readRuleIds(in, ruleSet.getRecolorRules().size());
+                String recoloredName = in.readUTF();
+                BitSet tooltipMatches = readRuleIds(in, ruleSet.getTooltipRules().size());
+                decisions.put(name, new PackDecision(name, generation, visible, reorderMatches,
+                    recolorMatches, recoloredName, tooltipMatches));
+            }
+            ShaderPatternUtil.logDebug("Loaded " + count + " stored pack decisions");
+            return decisions;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            IrisShaderFolder.LOGGER.warn("Ignoring unreadable pack decision cache: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the decisions in the background, replacing what was stored before
+     */
+    void save(byte[] configHash, List<String> names, Collection<PackDecision> decisions) {
+        List<String> nameList = new ArrayList<>(names);
+        List<PackDecision> decisionList = new ArrayList<>(decisions);
+        writer.execute(() -> {
+            try {
+                ConfigManager.writeAtomically(path, encode(configHash, nameList, decisionList));
+                ShaderPatternUtil.logDebug("Stored " + decisionList.size() + " pack decisions");
+            } catch (IOException | RuntimeException e) {
+                IrisShaderFolder.LOGGER.warn("Could not store pack decisions: " + e.getMessage());
+            }
+        });
+    }
+
+    private static byte[] encode(byte[] configHash, List<String> names, List<PackDecision> decisions) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(IrisShaderFolder.VERSION);
+            writeBytes(out, configHash);
+            writeBytes(out, hashNames(names));
+
+            out.writeInt(decisions.size());
+            for (PackDecision decision : decisions) {
+                out.writeUTF(decision.getName());
+                out.writeBoolean(decision.isVisible());
+                writeInts(out, decision.getReorderRuleIds());
+                writeInts(out, decision.getRecolorRuleIds());
+                out.writeUTF(decision.getRecoloredName());
+                writeInts(out, decision.getTooltipRuleIds());
+            }
+            out.writeInt(checksum(bytes.toByteArray(), bytes.size()));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int checksum(byte[] content, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, length);
+        return (int) crc.getValue();
+    }
+
+    // The listing in the order Iris reported it, a rename, addition or removal changes the hash
+    private static byte[] hashNames(List<String> names) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String name : names) {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] value = new byte[readLength(in)];
+        in.readFully(value);
+        return value;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    // Ids index the rule lists, an id the current rules do not have means the file is damaged
+    private static BitSet readRuleIds(DataInputStream in, int ruleCount) throws IOException {
+        int length = readLength(in);
+        BitSet ids = new BitSet(ruleCount);
+        for (int i = 0; i < length; i++) {
+            int id = in.readInt();
+            if (id < 0 || id >= ruleCount) {
+                throw new IOException("Invalid rule id " + id);
+            }
+            ids.set(id);
+        }
+        return ids;
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IOException("Invalid length " + length);
+        }
+        return length;
+    }
+}
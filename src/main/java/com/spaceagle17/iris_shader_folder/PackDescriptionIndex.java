@@ -0,0 +1,353 @@
+package com.spaceagle17.iris_shader_folder;
+
+import com.spaceagle17.iris_shader_folder.util.BoundedCache;
+import com.spaceagle17.iris_shader_folder.util.PackMetadataReader;
+import com.spaceagle17.iris_shader_folder.util.ShaderPatternUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The pack.json descriptions of shader packs, read on background threads. Each entry remembers
+ * the file it was read from with its size and modification time, and is only read again once
+ * that metadata changes. The metadata of all entries is checked in one batch at most every
+ * few seconds. Entries are kept in a PackMetadataStore, so after a restart unchanged packs
+ * are only looked up, not opened.
+ */
+final class PackDescriptionIndex {
+    private static final int LOADER_THREADS = 2;
+    private static final int LOADER_QUEUE_SIZE = 1024;
+    // Bounds for the characters held by entries, an evicted entry is read again when needed
+    private static final int MAX_ENTRY_WEIGHT = 512 * 1024;
+    private static final int MAX_KNOWN_WEIGHT = 1024 * 1024;
+    private static final int ENTRY_OVERHEAD = 64;
+
+    // Entries checked against their file in this session
+    private final BoundedCache<String, Entry> entries = new BoundedCache<>("Pack descriptions",
+        MAX_ENTRY_WEIGHT, PackDescriptionIndex::weigh);
+    // Everything known, including stored entries not checked yet; read from the store on first use
+    private BoundedCache<String, Entry> known;
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean validating = new AtomicBoolean();
+    private final AtomicBoolean saveQueued = new AtomicBoolean();
+    // Incremented whenever an entry is added, replaced or removed
+    private final AtomicInteger version = new AtomicInteger();
+    private final PackMetadataStore store;
+    private volatile Set<String> listedNames;
+    private final long validationInterval;
+    private final ThreadPoolExecutor loader;
+    private volatile long lastValidationTime = System.currentTimeMillis();
+
+    PackDescriptionIndex(long validationInterval, PackMetadataStore store) {
+        this.validationInterval = validationInterval;
+        this.store = store;
+        this.loader = new ThreadPoolExecutor(LOADER_THREADS, LOADER_THREADS, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(LOADER_QUEUE_SIZE),
+            r -> {
+                Thread thread = new Thread(r, "IrisShaderFolderDescriptionLoader");
+                thread.setDaemon(true);
+                return thread;
+            },
+            (task, executor) -> {
+                // When the queue is full the pack is requested again the next time it is hovered
+                if (task instanceof Load) {
+                    loading.remove(((Load) task).shaderName);
+                } else if (task instanceof Save) {
+                    saveQueued.set(false);
+                } else {
+                    validating.set(false);
+                }
+            });
+        loader.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the loaded entry of a pack, or null after queueing its load.
+     */
+    Entry get(String shaderName) {
+        Entry entry = entries.get(shaderName);
+        if (entry == null) {
+            request(shaderName);
+        }
+        return entry;
+    }
+
+    /**
+     * Queues loading the packs that are not loaded yet
+     */
+    void prefetch(Collection<String> shaderNames) {
+        // Stored packs that are no longer listed are dropped on the next save
+        listedNames = new HashSet<>(shaderNames);
+        for (String shaderName : shaderNames) {
+            if (!entries.containsKey(shaderName)) {
+                request(shaderName);
+            }
+        }
+    }
+
+    /**
+     * Queues a metadata check of all entries if the last one is long enough ago
+     */
+    void validateIfDue() {
+        long currentTime = System.currentTimeMillis();
+        if (currentTime - lastValidationTime < validationInterval || !validating.compareAndSet(false, true)) {
+            return;
+        }
+        lastValidationTime = currentTime;
+        loader.execute(this::validate);
+    }
+
+    /**
+     * Changes whenever an entry is loaded, reloaded or cleared
+     */
+    int getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Hit, miss and eviction counts of the checked entries
+     */
+    String describeStats() {
+        return entries.describeStats();
+    }
+
+    void clear() {
+        entries.clear();
+        version.incrementAndGet();
+    }
+
+    private void request(String shaderName) {
+        if (loading.add(shaderName)) {
+            loader.execute(new Load(shaderName));
+        }
+    }
+
+    private void validate() {
+        try {
+            int reloaded = 0;
+            for (Map.Entry<String, Entry> mapEntry : entries.snapshot().entrySet()) {
+                String shaderName = mapEntry.getKey();
+                Entry entry = mapEntry.getValue();
+                Source source = Source.find(shaderName);
+                if (!entry.isReadFrom(source)) {
+                    Entry updated = read(shaderName, source);
+                    if (entries.replace(shaderName, entry, updated)) {
+                        getKnown().put(shaderName, updated);
+                        version.incrementAndGet();
+                    }
+                    reloaded++;
+                }
+            }
+            if (reloaded > 0) {
+                ShaderPatternUtil.logDebug("Reloaded " + reloaded + " changed pack descriptions");
+                queueSave();
+            }
+        } finally {
+            validating.set(false);
+        }
+    }
+
+    private final class Load implements Runnable {
+        private final String shaderName;
+
+        Load(String shaderName) {
+            this.shaderName = shaderName;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Source source = Source.find(shaderName);
+                Entry entry = getKnown().get(shaderName);
+                if (entry == null || !entry.isReadFrom(source)) {
+                    entry = read(shaderName, source);
+                    getKnown().put(shaderName, entry);
+                    queueSave();
+                }
+                entries.put(shaderName, entry);
+                version.incrementAndGet();
+            } finally {
+                loading.remove(shaderName);
+            }
+        }
+    }
+
+    private synchronized BoundedCache<String, Entry> getKnown() {
+        if (known == null) {
+            known = new BoundedCache<>("Known pack metadata", MAX_KNOWN_WEIGHT, PackDescriptionIndex::weigh);
+            for (Map.Entry<String, Entry> stored : store.load().entrySet()) {
+                known.put(stored.getKey(), stored.getValue());
+            }
+        }
+        return known;
+    }
+
+    private static int weigh(String shaderName, Entry entry) {
+        String description = entry.getDescription();
+        return ENTRY_OVERHEAD + shaderName.length() + (description != null ? description.length() : 0);
+    }
+
+    // Packs are usually loaded in bursts, one save runs after the burst queued before it
+    private void queueSave() {
+        if (saveQueued.compareAndSet(false, true)) {
+            loader.execute(new Save());
+        }
+    }
+
+    private final class Save implements Runnable {
+        @Override
+        public void run() {
+            saveQueued.set(false);
+            Map<String, Entry> toStore = getKnown().snapshot();
+            Set<String> listed = listedNames;
+            if (listed != null) {
+                toStore.keySet().removeIf(name -> !listed.contains(name) && !entries.containsKey(name));
+            }
+            store.save(toStore);
+        }
+    }
+
+    private static Entry read(String shaderName, Source source) {
+        PackMetadataReader.PackMetadata metadata = PackMetadataReader.PackMetadata.NONE;
+        try {
+            if (source != null && source.zip) {
+                metadata = PackMetadataReader.readFromZip(source.path);
+            } else if (source != null) {
+                metadata = PackMetadataReader.readFromFile(source.path);
+            }
+        } catch (Exception e) {
+            if (IrisShaderFolder.debugLoggingEnabled) {
+                IrisShaderFolder.LOGGER.error("Error getting pack.json description for: " + shaderName, e);
+            }
+        }
+        return new Entry(source, metadata.getDescription(), metadata.getRootFolder());
+    }
+
+    /**
+     * The description of one pack and the metadata of the file it was read from
+     */
+    static final class Entry {
+        private final Source source;
+        private final String description;
+        private final String rootFolder;
+
+        Entry(Source source, String description, String rootFolder) {
+            this.source = source;
+            this.description = description;
+            this.rootFolder = rootFolder;
+        }
+
+        /**
+         * The file the entry was read from, or null if the pack was not found
+         */
+        Source getSource() {
+            return source;
+        }
+
+        /**
+         * The shaderDescription from pack.json, or null if there is none
+         */
+        String getDescription() {
+            return description;
+        }
+
+        /**
+         * The folder holding shaders/ inside a zip, "" for the pack root, or null without a pack.json
+         */
+        String getRootFolder() {
+            return rootFolder;
+        }
+
+        boolean isReadFrom(Source current) {
+            return Objects.equals(source, current);
+        }
+    }
+
+    /**
+     * Where a pack's pack.json is: a folder pack's shaders/pack.json, otherwise the zip
+     */
+    static final class Source {
+        private final Path path;
+        private final boolean zip;
+        private final long size;
+        private final long lastModified;
+
+        Source(Path path, boolean zip, long size, long lastModified) {
+            this.path = path;
+            this.zip = zip;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        Path getPath() {
+            return path;
+        }
+
+        boolean isZip() {
+            return zip;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Looks up the file and its metadata, null if the pack has neither
+         */
+        static Source find(String shaderName) {
+            String baseName = shaderName;
+            if (baseName.toLowerCase().endsWith(".zip")) {
+                baseName = baseName.replace(".zip", "");
+            }
+
+            Path packJsonPath = IrisShaderFolder.shaderpacks.resolve(baseName).resolve("shaders/pack.json");
+            Source source = stat(packJsonPath, false);
+            if (source == null) {
+                source = stat(IrisShaderFolder.shaderpacks.resolve(baseName + ".zip"), true);
+            }
+            return source;
+        }
+
+        private static Source stat(Path path, boolean zip) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return attributes.isRegularFile()
+                    ? new Source(path, zip, attributes.size(), attributes.lastModifiedTime().toMillis())
+                    : null;
+            } catch (IOException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Source)) return false;
+            Source other = (Source) o;
+            return zip == other.zip && size == other.size && lastModified == other.lastModified
+                && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, zip, size, lastModified);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.spaceagle17.iris_shader_folder;
+
+import net.minecraft.network.chat.Component;
+
+/**
+ * What a shader pack entry shows, built once per pack when the pack list is refreshed.
+ * Entries keep their model and only replace it once the config generation changes, so
+ * drawing a name needs no rule evaluation. Components are only created once an entry asks
+ * for them, and the tooltip body is rebuilt only after a pack description was loaded or changed.
+ */
+public final class PackDisplayModel {
+    private final PackDecision decision;
+    private volatile Component title;
+    private volatile Tooltip tooltip;
+
+    PackDisplayModel(PackDecision decision) {
+        this.decision = decision;
+    }
+
+    /**
+     * The name as Iris lists it
+     */
+    public String getName() {
+        return decision.getName();
+    }
+
+    public String getRecoloredName() {
+        return decision.getRecoloredName();
+    }
+
+    /**
+     * The recolored name as a component, also used as the tooltip title. Styled without § codes
+     * where the Minecraft version allows it, otherwise a plain component of the § code text.
+     * Shared, callers that change the style must copy it first. Null if no component can be created.
+     */
+    public Component getTitle() {
+        Component current = title;
+        if (current == null) {
+            current = decision.getRecoloredComponent();
+            if (current == null) {
+                current = TextComponentFactory.create(decision.getRecoloredName());
+            }
+            title = current;
+        }
+        return current;
+    }
+
+    /**
+     * The styled name without § codes, or null on versions that cannot build one
+     */
+    public Component getStyledName() {
+        return decision.getRecoloredComponent();
+    }
+
+    /**
+     * False once the config was reloaded, the entry should then get a new model
+     */
+    public boolean isCurrent() {
+        return decision.getGeneration() == ConfigManager.getSnapshot().getGeneration();
+    }
+
+    /**
+     * The tooltip body, or null if the pack has no tooltip. The same component is returned
+     * until the tooltip changes.
+     */
+    public Component getTooltipBody() {
+        ShaderTooltipSystem tooltips = ShaderTooltipSystem.getInstance();
+        int version = tooltips.getDescriptionVersion();
+        Tooltip current = tooltip;
+        if (current == null || current.version != version) {
+            String text = tooltips.getTooltip(decision);
+            current = new Tooltip(version, text.isEmpty() ? null : TextComponentFactory.create(text));
+            tooltip = current;
+        }
+        return current.body;
+    }
+
+    /**
+     * A tooltip body and the description version it was built at
+     */
+    private static final class Tooltip {
+        private final int version;
+        private final Component body;
+
+        Tooltip(int version, Component body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.spaceagle17.iris_shader_folder;
+
+import com.spaceagle17.iris_shader_folder.util.ShaderPatternUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps what was read from each pack's pack.json on disk between game sessions: the file it
+ * came from with its size and modification time, the description and the root folder.
+ * The file is replaced atomically and ends with a CRC32, a damaged or partial file is ignored.
+ */
+final class PackMetadataStore {
+    private static final String STORE_FILENAME = "iris_shader_folder.packs";
+    private static final int MAGIC = 0x49534650; // "ISFP"
+    private static final int FORMAT_VERSION = 1;
+    // Upper bound for stored lengths, so a damaged file cannot make us allocate gigabytes
+    private static final int MAX_LENGTH = 1 << 20;
+
+    private final Path path;
+
+    PackMetadataStore() {
+        this(ConfigManager.getConfigSibling(STORE_FILENAME));
+    }
+
+    PackMetadataStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * The stored entries by pack name, empty if there is no usable file
+     */
+    Map<String, PackDescriptionIndex.Entry> load() {
+        try {
+            byte[] content = Files.readAllBytes(path);
+            if (content.length < 4 || checksum(content, content.length - 4) != ByteBuffer.wrap(content, content.length - 4, 4).getInt()) {
+                IrisShaderFolder.LOGGER.warn("Ignoring damaged pack metadata file " + path);
+                return Collections.emptyMap();
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, 0, content.length - 4));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return Collections.emptyMap();
+            }
+
+            int count = readLength(in);
+            Map<String, PackDescriptionIndex.Entry> entries = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String shaderName = readString(in);
+                PackDescriptionIndex.Source source = null;
+                if (in.readBoolean()) {
+                    Path sourcePath = Paths.get(readString(in));
+                    boolean zip = in.readBoolean();
+                    long size = in.readLong();
+                    long lastModified = in.readLong();
+                    source = new PackDescriptionIndex.Source(sourcePath, zip, size, lastModified);
+                }
+                String description = readNullableString(in);
+                String rootFolder = readNullableString(in);
+                entries.put(shaderName, new PackDescriptionIndex.Entry(source, description, rootFolder));
+            }
+            ShaderPatternUtil.logDebug("Loaded stored metadata of " + count + " packs");
+            return entries;
+        } catch (NoSuchFileException e) {
+            return Collections.emptyMap();
+        } catch (IOException | RuntimeException e) {
+            IrisShaderFolder.LOGGER.warn("Ignoring unreadable pack metadata file: " + e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Replaces the stored entries
+     */
+    void save(Map<String, PackDescriptionIndex.Entry> entries) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, PackDescriptionIndex.Entry> mapEntry : entries.entrySet()) {
+                    PackDescriptionIndex.Entry entry = mapEntry.getValue();
+                    PackDescriptionIndex.Source source = entry.getSource();
+                    writeString(out, mapEntry.getKey());
+                    out.writeBoolean(source != null);
+                    if (source != null) {
+                        writeString(out, source.getPath().toString());
+                        out.writeBoolean(source.isZip());
+                        out.writeLong(source.getSize());
+                        out.writeLong(source.getLastModified());
+                    }
+                    writeNullableString(out, entry.getDescription());
+                    writeNullableString(out, entry.getRootFolder());
+                }
+                out.writeInt(checksum(bytes.toByteArray(), bytes.size()));
+            }
+            ConfigManager.writeAtomically(path, bytes.toByteArray());
+            ShaderPatternUtil.logDebug("Stored metadata of " + entries.size() + " packs");
+        } catch (IOException | RuntimeException e) {
+            IrisShaderFolder.LOGGER.warn("Could not store pack metadata: " + e.getMessage());
+        }
+    }
+
+    private static int checksum(byte[] content, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, length);
+        return (int) crc.getValue();
+    }
+
+    // Length prefixed UTF-8, unlike writeUTF this has no 64 KB limit
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readLength(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IOException("Invalid length " + length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,190 @@
+package com.spaceagle17.iris_shader_folder;
+
+import com.spaceagle17.iris_shader_folder.rule.ColorClause;
+import com.spaceagle17.iris_shader_folder.rule.RecolorRule;
+import com.spaceagle17.iris_shader_folder.rule.RuleSet;
+import com.spaceagle17.iris_shader_folder.rule.ShaderPattern;
+import com.spaceagle17.iris_shader_folder.util.BudgetedCharSequence;
+import com.spaceagle17.iris_shader_folder.util.CompiledShaderPattern;
+import com.spaceagle17.iris_shader_folder.util.PatternQuarantine;
+import com.spaceagle17.iris_shader_folder.util.ShaderPatternUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The recolor rules of one RuleSet with every part pattern already compiled, followed by the
+ * built-in Euphoria rule. Instances are immutable, recoloring a name never compiles a regex.
+ * Matching parts become RecolorSpans over the plain name, the colored name is built once.
+ */
+final class RecolorProgram {
+    private static final String EUPHORIA_DETECTION = "(EuphoriaPatches|Euphoria-Patches|EP_earlyDev|Complementary.* \\+ EP)";
+    private static final String EUPHORIA_PATTERN = "{.*" + EUPHORIA_DETECTION + ".*}";
+
+    // The Euphoria rule is the same for every config, so it is compiled once. It comes after
+    // the user rules, so its colors take precedence where both color the same part.
+    private static final List<ColorRule> EUPHORIA_COLOR_RULES = Collections.unmodifiableList(Arrays.asList(
+        new ColorRule(ShaderPattern.parse("+ EuphoriaPatches_{version}"), ShaderRecolorSystem.getColorCode("light_purple")),
+        new ColorRule(ShaderPattern.parse("Euphoria-Patches{.*}"), ShaderRecolorSystem.getColorCode("light_purple")),
+        new ColorRule(ShaderPattern.parse("+ EP_{.*}"), ShaderRecolorSystem.getColorCode("light_purple")),
+        new ColorRule(ShaderPattern.parse("EuphoriaPatches_earlyDev{.*}"), ShaderRecolorSystem.getColorCode("light_purple")),
+        new ColorRule(ShaderPattern.parse("_0EuphoriaPatches Error Shader"), ShaderRecolorSystem.getColorCode("red")),
+        new ColorRule(ShaderPattern.parse("Outdated"), ShaderRecolorSystem.getColorCode("red"))));
+    private static final Rule EUPHORIA_RULE = new Rule(ShaderPattern.parse(EUPHORIA_PATTERN), EUPHORIA_COLOR_RULES, true);
+
+    private final RuleSet ruleSet;
+    private final List<Rule> rules;
+    private final int userRuleCount;
+
+    private RecolorProgram(RuleSet ruleSet, List<Rule> rules, int userRuleCount) {
+        this.ruleSet = ruleSet;
+        this.rules = rules;
+        this.userRuleCount = userRuleCount;
+    }
+
+    /**
+     * Compiles the recolor rules of a RuleSet, the rule ids of the user rules stay the same
+     */
+    static RecolorProgram compile(RuleSet ruleSet) {
+        List<Rule> rules = new ArrayList<>();
+        for (RecolorRule rule : ruleSet.getRecolorRules()) {
+            List<ColorRule> colorRules = new ArrayList<>();
+            for (ColorClause clause : rule.getClauses()) {
+                colorRules.add(new ColorRule(clause.getPartPattern(), ShaderRecolorSystem.getColorCode(clause.getColor())));
+            }
+
+            rules.add(new Rule(rule.getShaderPattern(), colorRules, false));
+            ShaderPatternUtil.logDebug("Added recolor rule for pattern: " + rule.getShaderPattern() +
+                " with " + colorRules.size() + " color rules");
+        }
+
+        int userRuleCount = rules.size();
+        rules.add(EUPHORIA_RULE);
+        ShaderPatternUtil.logDebug("Added default recolor rule for Euphoria Patches");
+        return new RecolorProgram(ruleSet, Collections.unmodifiableList(rules), userRuleCount);
+    }
+
+    RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    /**
+     * Recolors a name given which user rules of the RuleSet match it.
+     * The Euphoria rule is matched here since it is not part of the config.
+     */
+    String apply(String name, BitSet userRuleMatches) {
+        boolean debug = IrisShaderFolder.debugLoggingEnabled;
+        if (debug) ShaderPatternUtil.logDebug("Processing shader name: [" + name + "]");
+
+        // Every rule matches the plain name, later rules win where spans overlap
+        RecolorSpans spans = new RecolorSpans(name);
+        for (int ruleId = 0; ruleId < rules.size(); ruleId++) {
+            Rule rule = rules.get(ruleId);
+            boolean matches = ruleId < userRuleCount
+                ? userRuleMatches.get(ruleId)
+                : ShaderPatternUtil.matchesPattern(name, rule.compiledPattern);
+            if (debug) {
+                ShaderPatternUtil.logDebug("- Rule [" + rule.shaderPattern.getSource() + "]"
+                    + (rule.euphoria ? " (Euphoria rule)" : "") + (matches ? " matches" : " does not match"));
+            }
+            if (!matches) {
+                continue;
+            }
+
+            for (ColorRule colorRule : rule.colorRules) {
+                int added = colorRule.addSpans(name, spans);
+                if (debug) {
+                    ShaderPatternUtil.logDebug("  - Color rule [" + colorRule.source + " -> " + colorRule.colorCode + "] "
+                        + (added > 0 ? "colored " + added + " parts" : "had no effect"));
+                }
+            }
+        }
+
+        String result = spans.format();
+        if (debug && spans.getSpanCount() > 0) {
+            ShaderPatternUtil.logDebug("- Recolored: [" + result + "]");
+        }
+        return result;
+    }
+
+    /**
+     * A shader pattern with the color rules applied to the names it matches
+     */
+    private static final class Rule {
+        private final ShaderPattern shaderPattern;
+        private final CompiledShaderPattern compiledPattern;
+        private final List<ColorRule> colorRules;
+        private final boolean euphoria;
+
+        Rule(ShaderPattern shaderPattern, List<ColorRule> colorRules, boolean euphoria) {
+            this.shaderPattern = shaderPattern;
+            // User rules are matched through the RuleSet index, only the Euphoria rule is matched here
+            this.compiledPattern = euphoria ? shaderPattern.compile() : null;
+            this.colorRules = colorRules;
+            this.euphoria = euphoria;
+        }
+    }
+
+    /**
+     * One part pattern with its compiled regex and style
+     */
+    private static final class ColorRule {
+        private final String source;
+        private final String colorCode;
+        private final RecolorSpans.Style style;
+        private final boolean all;
+        // Null for {all} and for a pattern that is not a valid regex
+        private final Pattern pattern;
+
+        ColorRule(ShaderPattern partPattern, String colorCode) {
+            this.source = partPattern.getSource();
+            this.colorCode = colorCode;
+            this.style = RecolorSpans.Style.parse(colorCode);
+            this.all = source.equals("{all}");
+            this.pattern = all ? null : compile(partPattern);
+        }
+
+        private static Pattern compile(ShaderPattern partPattern) {
+            try {
+                return Pattern.compile(partPattern.toRegex());
+            } catch (PatternSyntaxException e) {
+                IrisShaderFolder.LOGGER.error("Invalid pattern in color rule: " + partPattern.getSource(), e);
+                return null;
+            }
+        }
+
+        /**
+         * Adds a span for every part of the name this pattern finds, returns how many were added
+         */
+        int addSpans(String name, RecolorSpans spans) {
+            if (all) {
+                spans.add(0, name.length(), style);
+                return 1;
+            }
+            if (pattern == null || PatternQuarantine.isQuarantined(PatternQuarantine.PART_PATTERN, source)) {
+                return 0;
+            }
+
+            // Reads are counted so a runaway pattern gets aborted
+            int spanCount = spans.getSpanCount();
+            BudgetedCharSequence budgetedName = new BudgetedCharSequence(name, PatternQuarantine.STEP_BUDGET);
+            try {
+                Matcher matcher = pattern.matcher(budgetedName);
+                while (matcher.find()) {
+                    spans.add(matcher.start(), matcher.end(), style);
+                }
+                return spans.getSpanCount() - spanCount;
+            } catch (BudgetedCharSequence.StepBudgetExceededException e) {
+                spans.truncate(spanCount);
+                PatternQuarantine.quarantine(PatternQuarantine.PART_PATTERN, source, budgetedName.getSteps(), name);
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.spaceagle17.iris_shader_folder;
+
+import java.util.Arrays;
+
+/**
+ * The styled spans of one pack name. Rules add (start, end, style) spans over the plain name in
+ * priority order, a later span wins where spans overlap. The § formatted name is only built once
+ * at the end, so rules never see color codes added by earlier rules.
+ */
+final class RecolorSpans {
+    private static final String COLOR_CODES = "0123456789abcdef";
+    private static final String FORMAT_CODES = "klmno";
+    // Bits 0-4 hold the color index plus one, 0 for no color; bits 5-9 hold the formats in FORMAT_CODES order
+    private static final int COLOR_MASK = 0x1f;
+    private static final int FORMAT_SHIFT = 5;
+
+    private final String text;
+    // start, end, keep mask and set bits of each span, in the order they were added
+    private int[] spans = new int[16];
+    private int size;
+
+    RecolorSpans(String text) {
+        this.text = text;
+    }
+
+    void add(int start, int end, Style style) {
+        if (start >= end) {
+            return;
+        }
+        if (size + 4 > spans.length) {
+            spans = Arrays.copyOf(spans, spans.length * 2);
+        }
+        spans[size++] = start;
+        spans[size++] = end;
+        spans[size++] = style.keep;
+        spans[size++] = style.set;
+    }
+
+    int getSpanCount() {
+        return size / 4;
+    }
+
+    /**
+     * Drops the spans added after the given span count
+     */
+    void truncate(int spanCount) {
+        size = spanCount * 4;
+    }
+
+    /**
+     * Builds the § formatted name: every styled run is written as its codes, the text and §r
+     */
+    String format() {
+        if (size == 0) {
+            return text;
+        }
+
+        int[] styles = new int[text.length()];
+        for (int i = 0; i < size; i += 4) {
+            int keep = spans[i + 2];
+            int set = spans[i + 3];
+            for (int c = spans[i]; c < spans[i + 1]; c++) {
+                styles[c] = (styles[c] & keep) | set;
+            }
+        }
+
+        StringBuilder result = new StringBuilder(text.length() + size * 2);
+        int runStart = 0;
+        while (runStart < styles.length) {
+            int style = styles[runStart];
+            int runEnd = runStart + 1;
+            while (runEnd < styles.length && styles[runEnd] == style) {
+                runEnd++;
+            }
+
+            if (style == 0) {
+                result.append(text, runStart, runEnd);
+            } else {
+                int color = style & COLOR_MASK;
+                if (color != 0) {
+                    result.append('§').append(COLOR_CODES.charAt(color - 1));
+                }
+                for (int f = 0; f < FORMAT_CODES.length(); f++) {
+                    if ((style & (1 << (FORMAT_SHIFT + f))) != 0) {
+                        result.append('§').append(FORMAT_CODES.charAt(f));
+                    }
+                }
+                result.append(text, runStart, runEnd).append("§r");
+            }
+            runStart = runEnd;
+        }
+        return result.toString();
+    }
+
+    /**
+     * What a sequence of § codes does to the style of a character, applied like Minecraft does:
+     * a color replaces the color and clears formats, a format is added, §r clears everything.
+     */
+    static final class Style {
+        private final int keep;
+        private final int set;
+
+        private Style(int keep, int set) {
+            this.keep = keep;
+            this.set = set;
+        }
+
+        /**
+         * Parses codes such as "§6" or "§6§l", unknown codes are ignored
+         */
+        static Style parse(String codes) {
+            int keep = -1;
+            int set = 0;
+            for (int i = 0; i + 1 < codes.length(); i++) {
+                if (codes.charAt(i) != '§') {
+                    continue;
+                }
+                char code = Character.toLowerCase(codes.charAt(++i));
+                int color = COLOR_CODES.indexOf(code);
+                int format = FORMAT_CODES.indexOf(code);
+                if (color >= 0) {
+                    keep = 0;
+                    set = color + 1;
+                } else if (format >= 0) {
+                    set |= 1 << (FORMAT_SHIFT + format);
+                } else if (code == 'r') {
+                    keep = 0;
+                    set = 0;
+                }
+            }
+            return new Style(keep, set);
+        }
+    }
+}
@@ -1,19 +1,20 @@
 package com.spaceagle17.iris_shader_folder;
 
+import com.spaceagle17.iris_shader_folder.rule.RuleSet;
+import com.spaceagle17.iris_shader_folder.rule.ShaderPattern;
+import com.spaceagle17.iris_shader_folder.util.CompiledShaderPattern;
+import com.spaceagle17.iris_shader_folder.util.MultiPatternMatcher;
+import com.spaceagle17.iris_shader_folder.util.ShaderPatternCache;
 import com.spaceagle17.iris_shader_folder.util.ShaderPatternUtil;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 public class ShaderFilterSystem {
     private static ShaderFilterSystem INSTANCE;
     private static final String DEBUG_FILE = "config/iris_shader_filter_debug.txt";
     
-    private List<Pattern> compiledPatterns = new ArrayList<>();
-    private List<String> lastFilterPatterns = new ArrayList<>();
+    private RuleSet lastRuleSet = null;
     private boolean lastDebugLogSetting = false;
     
     private ShaderFilterSystem() {
@@ -40,22 +41,23 @@ public class ShaderFilterSystem {
     }
     
     public void updatePatterns() {
-        List<String> filterPatterns = IrisShaderFolder.filterPatterns;
+        RuleSet ruleSet = IrisShaderFolder.getRuleSet();
+        List<ShaderPattern> filterPatterns = ruleSet.getFilterPatterns();
         boolean debugLogging = IrisShaderFolder.debugLoggingEnabled;
         
-        // Only recompile if the filter patterns have changed or debug logging setting changed
-        if (filterPatterns.equals(lastFilterPatterns) && debugLogging == lastDebugLogSetting) {
+        // Only recompile if the rules have been reloaded or debug logging setting changed
+        if (ruleSet == lastRuleSet && debugLogging == lastDebugLogSetting) {
             return;
         }
         
         // Remember current settings
-        lastFilterPatterns = new ArrayList<>(filterPatterns);
+        lastRuleSet = ruleSet;
         lastDebugLogSetting = debugLogging;
         
         StringBuilder debugContent = new StringBuilder();
         debugContent.append("Filter patterns (").append(filterPatterns.size()).append("):\n");
-        for (String pattern : filterPatterns) {
-            debugContent.append("  - '").append(pattern).append("'\n");
+        for (ShaderPattern pattern : filterPatterns) {
+            debugContent.append("  - '").append(pattern.getSource()).append("'\n");
         }
         debugContent.append("\n");
         
@@ -64,65 +66,55 @@ public class ShaderFilterSystem {
             writeDebug(debugContent.toString(), false);
         }
         
-        compiledPatterns.clear();
-        
-        for (String pattern : filterPatterns) {
-            pattern = pattern.trim();
-            if (pattern.isEmpty() || pattern.startsWith("#")) continue;
-            
-            try {
-                debugContent = new StringBuilder();
-                if (debugLogging) {
-                    debugContent.append("Processing pattern: '").append(pattern).append("'\n");
-                }
-                
-                // Convert the pattern to regex using utility class
-                String regexPattern = ShaderPatternUtil.convertToRegex(pattern);
-                if (debugLogging) {
-                    debugContent.append("  → Converted to regex: '").append(regexPattern).append("'\n");
-                }
-                
-                // Add the optional .zip extension
-                String finalPattern = "^" + regexPattern + "(\\.zip)?$";
-                if (debugLogging) {
-                    debugContent.append("  → Final pattern: '").append(finalPattern).append("'\n\n");
-                    writeDebug(debugContent.toString(), true);
-                }
+        for (ShaderPattern pattern : filterPatterns) {
+            if (!debugLogging) break;
 
-                if (debugLogging) {
-                    ShaderPatternUtil.logDebug("Creating pattern: " + finalPattern);
-                }
-                compiledPatterns.add(Pattern.compile(finalPattern, Pattern.CASE_INSENSITIVE));
-            } catch (PatternSyntaxException e) {
-                String errorMsg = "Invalid filter pattern: " + pattern + " - " + e.getMessage();
-                IrisShaderFolder.LOGGER.error(errorMsg);
-                if (debugLogging) {
-                    writeDebug("ERROR: " + errorMsg + "\n", true);
+            debugContent = new StringBuilder();
+            debugContent.append("Processing pattern: '").append(pattern.getSource()).append("'\n");
+            if (pattern.isSimple()) {
+                debugContent.append("  → Merged into filter automaton\n\n");
+            } else {
+                CompiledShaderPattern compiled = pattern.compile();
+                if (compiled == null) {
+                    writeDebug("ERROR: Invalid filter pattern at " + pattern.getPosition() + ": " + pattern.getSource() + "\n", true);
+                    continue;
                 }
+                debugContent.append("  → Converted to regex: '").append(pattern.toRegex()).append("'\n");
+                debugContent.append("  → Final pattern: '").append(compiled.getRegex()).append("'\n\n");
             }
+            writeDebug(debugContent.toString(), true);
+        }
+
+        if (debugLogging) {
+            MultiPatternMatcher filterMatcher = PackDecisionEngine.getInstance().getFilterMatcher();
+            writeDebug("Filter automaton patterns: " + filterMatcher.getAutomatonPatternCount()
+                + ", regex fallback patterns: " + filterMatcher.getFallbackPatternCount() + "\n", true);
+            writeDebug(ShaderPatternCache.describeStats() + "\n", true);
+            writeDebug(PackDecisionEngine.getInstance().describeCacheStats() + "\n", true);
+            writeDebug(ShaderTooltipSystem.getInstance().describeCacheStats() + "\n\n", true);
         }
     }
     
     public boolean shouldFilterShaderPack(String packName) {
-        // Check for config file changes
-        if (ConfigManager.checkForUpdates()) {
-            updatePatterns();
-        }
+        // Only compares the config generation, reloading is done by the config watcher
+        updatePatterns();
         
-        for (Pattern pattern : compiledPatterns) {
-            if (pattern.matcher(packName).matches()) {
-                // Only log if debug logging is enabled
-                if (IrisShaderFolder.debugLoggingEnabled) {
-                    IrisShaderFolder.LOGGER.info("Filtering out shader pack: " + packName);
-                    writeDebug("Filtering out shader pack: " + packName + "\n", true);
-                }
-                return false; // Filter this pack out
-            }
+        if (!PackDecisionEngine.getInstance().evaluate(packName).isVisible()) {
+            logFilteredPack(packName);
+            return false; // Filter this pack out
         }
         
         return true; // Keep this pack
     }
     
+    void logFilteredPack(String packName) {
+        // Only log if debug logging is enabled
+        if (IrisShaderFolder.debugLoggingEnabled) {
+            IrisShaderFolder.LOGGER.info("Filtering out shader pack: " + packName);
+            writeDebug("Filtering out shader pack: " + packName + "\n", true);
+        }
+    }
+    
     public boolean matchesPattern(String packName, String patternStr) {
         // Use the utility method instead of duplicating code
         return ShaderPatternUtil.matchesPattern(packName, patternStr);
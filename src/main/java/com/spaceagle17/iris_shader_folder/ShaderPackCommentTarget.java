@@ -0,0 +1,11 @@
+package com.spaceagle17.iris_shader_folder;
+
+import net.minecraft.network.chat.Component;
+
+/**
+ * Implemented by the Iris shader pack screen through the screen mixins, so the entry mixins
+ * can show a tooltip with a direct call instead of looking the method up by reflection.
+ */
+public interface ShaderPackCommentTarget {
+    void irisShaderFolder$setShaderPackComment(Component title, Component body);
+}
@@ -1,5 +1,8 @@
 package com.spaceagle17.iris_shader_folder;
 
+import com.spaceagle17.iris_shader_folder.rule.RuleSet;
+import com.spaceagle17.iris_shader_folder.rule.ShaderPattern;
+import com.spaceagle17.iris_shader_folder.util.PositionTree;
 import com.spaceagle17.iris_shader_folder.util.ShaderPatternUtil;
 import java.util.*;
 
@@ -18,6 +21,19 @@ public class ShaderReorderSystem {
     }
     
     public List<String> reorderShaderPacks(List<String> shaderPacks) {
+        // Every pack is classified once against all rules by its decision
+        PackDecisionEngine engine = PackDecisionEngine.getInstance();
+        Map<String, PackDecision> decisions = new HashMap<>();
+        for (String pack : shaderPacks) {
+            decisions.put(pack, engine.evaluate(pack));
+        }
+        return reorderShaderPacks(shaderPacks, decisions, IrisShaderFolder.isSpacEagle());
+    }
+    
+    /**
+     * Reorders packs whose decisions are already known, used by PackDecisionEngine on refresh
+     */
+    public List<String> reorderShaderPacks(List<String> shaderPacks, Map<String, PackDecision> decisions, boolean spacEagle) {
         if (shaderPacks.isEmpty()) {
             return shaderPacks;
         }
@@ -26,7 +42,7 @@ public class ShaderReorderSystem {
         List<String> result = new ArrayList<>(shaderPacks);
         
         // Special case for SpacEagle: Euphoria-Patches must be first
-        if (IrisShaderFolder.isSpacEagle()) {
+        if (spacEagle) {
             String euphoriaPatches = "Euphoria-Patches";
             // Check both with and without .zip extension
             if (result.contains(euphoriaPatches)) {
@@ -38,76 +54,133 @@ public class ShaderReorderSystem {
         }
         
         // If there are no reorder patterns, return the result
-        List<String> reorderPatterns = IrisShaderFolder.getInstance().getReorderPatterns();
+        RuleSet ruleSet = IrisShaderFolder.getRuleSet();
+        List<ShaderPattern> reorderPatterns = ruleSet.getReorderPatterns();
         if (reorderPatterns.isEmpty()) {
             return result;
         }
         
-        // Create rules based on line order
-        List<ReorderRule> rules = new ArrayList<>();
-        for (int i = 0; i < reorderPatterns.size(); i++) {
-            String pattern = reorderPatterns.get(i).trim();
-            // Position is determined by line index (convert to 0-based)
-            int position = i;
-            rules.add(new ReorderRule(pattern, position));
-            
-            ShaderPatternUtil.logDebug("Added reorder rule: pattern '" + pattern + "' at position " + (position + 1));
+        if (IrisShaderFolder.debugLoggingEnabled) {
+            for (int i = 0; i < reorderPatterns.size(); i++) {
+                // Position is determined by line index (convert to 0-based)
+                ShaderPatternUtil.logDebug("Added reorder rule: pattern '" + reorderPatterns.get(i) + "' at position " + (i + 1));
+            }
         }
         
-        // Process each rule in order
-        int nextAvailableIndex = IrisShaderFolder.isSpacEagle() ? 1 : 0; // Start at index 1 if Euphoria-Patches is at 0
-        for (ReorderRule rule : rules) {
-            // Find matching packs
-            List<String> matchingPacks = new ArrayList<>();
-            Iterator<String> it = result.iterator();
-            while (it.hasNext()) {
-                String pack = it.next();
-                // If SpacEagle and this is Euphoria-Patches at index 0, skip it
-                if (IrisShaderFolder.isSpacEagle() && result.indexOf(pack) == 0 && 
-                    (pack.equals("Euphoria-Patches") || pack.equals("Euphoria-Patches.zip"))) {
-                    continue;
-                }
-                
-                if (ShaderPatternUtil.matchesPattern(pack, rule.getPattern())) {
-                    matchingPacks.add(pack);
-                    it.remove();
+        List<int[]> packRuleIds = new ArrayList<>(result.size());
+        for (String pack : result) {
+            packRuleIds.add(decisions.get(pack).getReorderRuleIds());
+        }
+        return reorder(result, packRuleIds, reorderPatterns.size(), spacEagle);
+    }
+    
+    /**
+     * Applies the rules in order: each rule takes all packs it matches out of the list and inserts
+     * them sorted at its position (or right after the packs placed by the previous rule), so a pack
+     * matching several rules ends up where the last one puts it. With SpacEagle the Euphoria pack
+     * at the top stays there.
+     * 
+     * Where packs get inserted only depends on how many packs each rule matches, so the list is
+     * kept in a PositionTree and every move costs O(log n) instead of shifting the whole list.
+     */
+    static List<String> reorder(List<String> packs, List<int[]> packRuleIds, int ruleCount, boolean spacEagle) {
+        int packCount = packs.size();
+        
+        // Packs matched by each rule, in list order
+        int[] ruleSizes = new int[ruleCount];
+        for (int[] ruleIds : packRuleIds) {
+            for (int ruleId : ruleIds) {
+                if (ruleId < ruleCount) ruleSizes[ruleId]++;
+            }
+        }
+        int[][] rulePacks = new int[ruleCount][];
+        for (int ruleId = 0; ruleId < ruleCount; ruleId++) {
+            if (ruleSizes[ruleId] > 0) {
+                rulePacks[ruleId] = new int[ruleSizes[ruleId]];
+                ruleSizes[ruleId] = 0;
+            }
+        }
+        for (int pack = 0; pack < packCount; pack++) {
+            for (int ruleId : packRuleIds.get(pack)) {
+                if (ruleId < ruleCount) rulePacks[ruleId][ruleSizes[ruleId]++] = pack;
+            }
+        }
+        
+        List<Integer> euphoriaPacks = new ArrayList<>(2);
+        if (spacEagle) {
+            for (int pack = 0; pack < packCount; pack++) {
+                if (isEuphoriaPatches(packs.get(pack))) euphoriaPacks.add(pack);
+            }
+        }
+        
+        PositionTree tree = new PositionTree(packCount);
+        int[] moved = new int[packCount];
+        Integer[] sorted = new Integer[packCount];
+        int nextAvailableIndex = spacEagle ? 1 : 0; // Start at index 1 if Euphoria-Patches is at 0
+        
+        for (int ruleId = 0; ruleId < ruleCount; ruleId++) {
+            int[] members = rulePacks[ruleId];
+            if (members == null) continue;
+            
+            int pinned = euphoriaPacks.isEmpty() ? -1 : findPinnedPack(tree, members, euphoriaPacks);
+            int count = 0;
+            for (int pack : members) {
+                if (pack != pinned) {
+                    tree.remove(pack);
+                    sorted[count++] = pack;
                 }
             }
+            if (count == 0) continue;
             
             // Sort matching packs alphabetically
-            Collections.sort(matchingPacks);
-            
-            // Determine insertion index
-            int insertIndex = rule.getPosition();
-            insertIndex = Math.max(insertIndex, nextAvailableIndex);
-            insertIndex = Math.min(insertIndex, result.size());
-            
-            // Insert packs at the determined index
-            for (String pack : matchingPacks) {
-                result.add(insertIndex, pack);
-                insertIndex++;
-                nextAvailableIndex = insertIndex;
+            Arrays.sort(sorted, 0, count, Comparator.comparing(packs::get));
+            for (int i = 0; i < count; i++) {
+                moved[i] = sorted[i];
             }
+            
+            // Insert them after the packs placed so far, but not before the rule's own position
+            int insertIndex = Math.min(Math.max(ruleId, nextAvailableIndex), packCount - count);
+            tree.insertAll(insertIndex, moved, count);
+            nextAvailableIndex = insertIndex + count;
         }
         
+        List<String> result = new ArrayList<>(packCount);
+        for (int pack : tree.toArray()) {
+            result.add(packs.get(pack));
+        }
         return result;
     }
     
-    private static class ReorderRule {
-        private final String pattern;
-        private final int position;
-        
-        public ReorderRule(String pattern, int position) {
-            this.pattern = pattern;
-            this.position = position;
+    /**
+     * A rule never moves the Euphoria pack that is at the top of the list when the rule reaches it,
+     * which is the first Euphoria pack if every pack before it is moved by the same rule.
+     * Returns that pack, or -1 if the rule moves all its packs.
+     */
+    private static int findPinnedPack(PositionTree tree, int[] members, List<Integer> euphoriaPacks) {
+        int first = -1;
+        int firstPosition = Integer.MAX_VALUE;
+        for (int pack : euphoriaPacks) {
+            int position = tree.positionOf(pack);
+            if (position < firstPosition) {
+                first = pack;
+                firstPosition = position;
+            }
         }
         
-        public String getPattern() {
-            return pattern;
+        if (Arrays.binarySearch(members, first) < 0) {
+            return -1;
         }
         
-        public int getPosition() {
-            return position;
+        int before = 0;
+        for (int pack : members) {
+            if (pack != first && tree.positionOf(pack) < firstPosition && ++before == firstPosition) {
+                break;
+            }
         }
+        return before == firstPosition ? first : -1;
+    }
+    
+    private static boolean isEuphoriaPatches(String pack) {
+        return pack.equals("Euphoria-Patches") || pack.equals("Euphoria-Patches.zip");
     }
-}
\ No newline at end of file
+}
@@ -1,30 +1,26 @@
 package com.spaceagle17.iris_shader_folder;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
+import com.spaceagle17.iris_shader_folder.rule.RuleSet;
+import com.spaceagle17.iris_shader_folder.rule.TooltipRule;
+import com.spaceagle17.iris_shader_folder.util.BoundedCache;
 import com.spaceagle17.iris_shader_folder.util.ShaderPatternUtil;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 public class ShaderTooltipSystem {
     private static ShaderTooltipSystem INSTANCE;
     
-    private final Map<String, String> tooltipCache = new HashMap<>();
-    private final Map<String, String> packJsonDescriptionCache = new HashMap<>();
+    // Bounded by the characters of the cached tooltips
+    private static final int MAX_TOOLTIP_WEIGHT = 256 * 1024;
+    private final BoundedCache<String, CachedTooltip> tooltipCache = new BoundedCache<>("Tooltip cache",
+        MAX_TOOLTIP_WEIGHT, (shaderName, tooltip) -> shaderName.length() + tooltip.text.length());
+    // How often the pack files are checked for changed descriptions
+    private static final long DESCRIPTION_CHECK_INTERVAL = 5000;
+    private final PackDescriptionIndex descriptions = new PackDescriptionIndex(DESCRIPTION_CHECK_INTERVAL,
+        new PackMetadataStore());
     
     private List<TooltipRule> tooltipRules = new ArrayList<>();
-    private List<String> lastTooltipPatterns = new ArrayList<>();
+    private RuleSet lastRuleSet = null;
     
-    private static final Gson GSON = new Gson();
-    
-    private long lastCacheRefreshTime = 0;
-    private static final long CACHE_REFRESH_INTERVAL = 5000;
     private boolean rulesInitialized = false;
     
     private ShaderTooltipSystem() {
@@ -39,58 +35,49 @@ public class ShaderTooltipSystem {
     }
     
     public void updateRules() {
-        List<String> tooltipPatterns = IrisShaderFolder.getInstance().getTooltipPatterns();
-        boolean configChanged = !tooltipPatterns.equals(lastTooltipPatterns);
+        RuleSet ruleSet = IrisShaderFolder.getRuleSet();
+        boolean configChanged = ruleSet != lastRuleSet;
         
         if (!configChanged && rulesInitialized) {
             return;
         }
         
-        lastTooltipPatterns = new ArrayList<>(tooltipPatterns);
-        tooltipRules.clear();        
-        clearCache();
+        lastRuleSet = ruleSet;
+        tooltipRules = ruleSet.getTooltipRules();
+        // Descriptions do not depend on the rules, the index checks their files on its own
+        tooltipCache.clear();
         
-        for (String rule : tooltipPatterns) {
-            rule = rule.trim();
-            if (rule.isEmpty() || rule.startsWith("#")) continue;
-            
-            try {
-                // Split by [|] to separate shader pattern from tooltip text
-                String[] parts = rule.split("\\s*\\[\\|\\]\\s*", 2);
-                
-                if (parts.length != 2) {
-                    IrisShaderFolder.LOGGER.error("Invalid tooltip rule format: {}", rule);
-                    continue;
-                }
-                
-                String shaderPattern = parts[0].trim();
-                String tooltipText = parts[1].trim();
-                
-                tooltipRules.add(new TooltipRule(shaderPattern, tooltipText));
-                ShaderPatternUtil.logDebug("Added tooltip rule for pattern: " + shaderPattern);
-            } catch (Exception e) {
-                IrisShaderFolder.LOGGER.error("Error parsing tooltip rule: " + rule, e);
-            }
+        for (TooltipRule rule : tooltipRules) {
+            ShaderPatternUtil.logDebug("Added tooltip rule for pattern: " + rule.getShaderPattern());
         }
         
         rulesInitialized = true;
     }
     
     public String getTooltip(String shaderName) {
-        ConfigManager.checkForUpdates();
+        return getTooltip(PackDecisionEngine.getInstance().evaluate(shaderName));
+    }
+    
+    /**
+     * Builds the tooltip from a decision, re-evaluating it if the rules changed since
+     */
+    public String getTooltip(PackDecision decision) {
         updateRules();
-        
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastCacheRefreshTime > CACHE_REFRESH_INTERVAL) {
-            clearCache();
-            lastCacheRefreshTime = currentTime;
+        if (decision.getGeneration() != lastRuleSet.getGeneration()) {
+            decision = PackDecisionEngine.getInstance().evaluate(decision.getName());
         }
+        String shaderName = decision.getName();
         
-        if (tooltipCache.containsKey(shaderName)) {
-            return tooltipCache.get(shaderName);
+        descriptions.validateIfDue();
+        // Null until the background load finished, the rule tooltips are shown right away
+        PackDescriptionIndex.Entry description = descriptions.get(shaderName);
+        
+        CachedTooltip cached = tooltipCache.get(shaderName);
+        if (cached != null && cached.description == description) {
+            return cached.text;
         }
         
-        String packJsonDescription = getPackJsonDescription(shaderName);
+        String packJsonDescription = description != null ? description.getDescription() : null;
         
         StringBuilder tooltipBuilder = new StringBuilder();
         
@@ -98,109 +85,65 @@ public class ShaderTooltipSystem {
             tooltipBuilder.append(packJsonDescription);
         }
         
-        for (TooltipRule rule : tooltipRules) {
-            if (ShaderPatternUtil.matchesPattern(shaderName, rule.getShaderPattern())) {
-                if (tooltipBuilder.length() > 0) {
-                    tooltipBuilder.append("\n");
-                }
-                tooltipBuilder.append(rule.getTooltipText());
+        for (int ruleId : decision.getTooltipRuleIds()) {
+            if (ruleId >= tooltipRules.size()) {
+                // Rules were reloaded while evaluating, the next call picks up the new ones
+                break;
             }
+            if (tooltipBuilder.length() > 0) {
+                tooltipBuilder.append("\n");
+            }
+            tooltipBuilder.append(tooltipRules.get(ruleId).getTooltipText());
         }
         
         String tooltip = tooltipBuilder.toString();
-        tooltipCache.put(shaderName, tooltip);
+        tooltipCache.put(shaderName, new CachedTooltip(tooltip, description));
         return tooltip;
     }
     
-    private String getPackJsonDescription(String shaderName) {
-        if (packJsonDescriptionCache.containsKey(shaderName)) {
-            return packJsonDescriptionCache.get(shaderName);
-        }
-        
-        String description = null;
-        
-        try {
-            String baseName = shaderName;
-            if (baseName.toLowerCase().endsWith(".zip")) {
-                baseName = baseName.replace(".zip", "");
-            }
-            
-            Path folderPath = IrisShaderFolder.shaderpacks.resolve(baseName);
-            Path packJsonPath = folderPath.resolve("shaders/pack.json");
-            
-            if (Files.exists(packJsonPath)) {
-                try {
-                    String content = new String(Files.readAllBytes(packJsonPath));
-                    description = extractDescription(content);
-                } catch (IOException e) {
-                    if (IrisShaderFolder.debugLoggingEnabled) {
-                        IrisShaderFolder.LOGGER.error("Error reading pack.json from folder: " + folderPath, e);
-                    }
-                }
-            } else {
-                Path zipPath = IrisShaderFolder.shaderpacks.resolve(baseName + ".zip");
-                if (Files.exists(zipPath)) {
-                    try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
-                        ZipEntry packJsonEntry = zipFile.getEntry("shaders/pack.json");
-                        if (packJsonEntry != null) {
-                            try (InputStreamReader reader = new InputStreamReader(zipFile.getInputStream(packJsonEntry))) {
-                                JsonObject jsonObject = GSON.fromJson(reader, JsonObject.class);
-                                if (jsonObject.has("shaderDescription")) {
-                                    description = jsonObject.get("shaderDescription").getAsString();
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        if (IrisShaderFolder.debugLoggingEnabled) {
-                            IrisShaderFolder.LOGGER.error("Error reading pack.json from zip: " + zipPath, e);
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            if (IrisShaderFolder.debugLoggingEnabled) {
-                IrisShaderFolder.LOGGER.error("Error getting pack.json description for: " + shaderName, e);
-            }
-        }
-        
-        packJsonDescriptionCache.put(shaderName, description);
-        return description;
+    /**
+     * Queues the periodic description check if it is due. Returns a number that changes whenever
+     * a description was loaded or changed and when the rules change, tooltips built from the same
+     * number are still current.
+     */
+    public int getDescriptionVersion() {
+        descriptions.validateIfDue();
+        return descriptions.getVersion();
     }
     
-    private String extractDescription(String jsonContent) {
-        try {
-            JsonObject jsonObject = GSON.fromJson(jsonContent, JsonObject.class);
-            if (jsonObject.has("shaderDescription")) {
-                return jsonObject.get("shaderDescription").getAsString();
-            }
-        } catch (JsonParseException e) {
-            if (IrisShaderFolder.debugLoggingEnabled) {
-                IrisShaderFolder.LOGGER.error("Error parsing pack.json", e);
-            }
-        }
-        return null;
+    /**
+     * Starts reading the pack.json descriptions of the listed packs in the background,
+     * so hovering a pack does not wait for the disk.
+     */
+    public void prefetchDescriptions(Collection<String> shaderNames) {
+        descriptions.prefetch(shaderNames);
     }
     
+    /**
+     * Hit, miss and eviction counts of the tooltip and description caches
+     */
+    public String describeCacheStats() {
+        return tooltipCache.describeStats() + "\n" + descriptions.describeStats();
+    }
+    
+    /**
+     * Drops the built tooltips and all loaded descriptions, which are then read again
+     */
     public void clearCache() {
         tooltipCache.clear();
-        packJsonDescriptionCache.clear();
+        descriptions.clear();
     }
     
-    private static class TooltipRule {
-        private final String shaderPattern;
-        private final String tooltipText;
-        
-        public TooltipRule(String shaderPattern, String tooltipText) {
-            this.shaderPattern = shaderPattern;
-            this.tooltipText = tooltipText;
-        }
-        
-        public String getShaderPattern() {
-            return shaderPattern;
-        }
-        
-        public String getTooltipText() {
-            return tooltipText;
+    /**
+     * A built tooltip and the description entry it was built from
+     */
+    private static final class CachedTooltip {
+        private final String text;
+        private final PackDescriptionIndex.Entry description;
+        
+        CachedTooltip(String text, PackDescriptionIndex.Entry description) {
+            this.text = text;
+            this.description = description;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.spaceagle17.iris_shader_folder;
+
+import net.minecraft.network.chat.Component;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Creates plain text components on every supported Minecraft version. Component.literal only
+ * exists since 1.19, older versions construct a text component class instead, so the working
+ * factory is looked up by reflection once and reused.
+ */
+final class TextComponentFactory {
+    private static final String[][] FACTORY_METHODS = {
+        {"net.minecraft.class_2561", "method_43470"}, // Fabric modern
+        {"net.minecraft.network.chat.Component", "literal"}, // Forge/NeoForge modern
+        {"net.minecraft.network.chat.Component", "m_237113_"}, // 1.20.1 Mojang mappings
+        {"net.minecraft.network.chat.Component", "m_130674_"}, // 1.18.2 Mojang mappings
+    };
+
+    private static final String[] CONSTRUCTOR_CLASSES = {
+        "net.minecraft.class_2585", // Fabric old
+        "net.minecraft.network.chat.TextComponent", // Forge old
+        "net.minecraft.util.text.StringTextComponent" // Very old Forge
+    };
+
+    private static final String[] COMPONENT_CLASSES = {
+        "net.minecraft.network.chat.Component",
+        "net.minecraft.text.Text",
+        "net.minecraft.class_2561"
+    };
+
+    private static boolean initialized = false;
+    private static Method cachedMethod = null;
+    private static Constructor<?> cachedConstructor = null;
+
+    private TextComponentFactory() {
+    }
+
+    /**
+     * A component showing the text, § codes included, or null if no way to create one was found
+     */
+    static synchronized Component create(String text) {
+        if (initialized) {
+            try {
+                if (cachedConstructor != null) {
+                    return (Component) cachedConstructor.newInstance(text);
+                } else if (cachedMethod != null) {
+                    return (Component) cachedMethod.invoke(null, text);
+                }
+                return null;
+            } catch (Exception | LinkageError ignored) {
+                // Fall back to searching again if the cached approach fails
+                initialized = false;
+                cachedMethod = null;
+                cachedConstructor = null;
+            }
+        }
+
+        initialized = true;
+        for (String[] approach : FACTORY_METHODS) {
+            try {
+                Method method = Class.forName(approach[0]).getMethod(approach[1], String.class);
+                Component component = (Component) method.invoke(null, text);
+                cachedMethod = method;
+                return component;
+            } catch (Exception | LinkageError ignored) {
+                // Try next approach
+            }
+        }
+
+        for (String className : CONSTRUCTOR_CLASSES) {
+            try {
+                Constructor<?> constructor = Class.forName(className).getConstructor(String.class);
+                Component component = (Component) constructor.newInstance(text);
+                cachedConstructor = constructor;
+                return component;
+            } catch (Exception | LinkageError ignored) {
+                // Try next approach
+            }
+        }
+
+        // Last resort, any static factory taking a String on a component class
+        for (String className : COMPONENT_CLASSES) {
+            try {
+                for (Method method : Class.forName(className).getMethods()) {
+                    if (method.getParameterCount() == 1 && method.getParameterTypes()[0] == String.class
+                            && Modifier.isStatic(method.getModifiers())) {
+                        try {
+                            Component component = (Component) method.invoke(null, text);
+                            cachedMethod = method;
+                            return component;
+                        } catch (Exception | LinkageError ignored) {
+                            // Try next method
+                        }
+                    }
+                }
+            } catch (Exception | LinkageError ignored) {
+                // Try next class
+            }
+        }
+
+        IrisShaderFolder.LOGGER.warn("Failed to create text components - cannot set shader pack comment");
+        return null;
+    }
+}
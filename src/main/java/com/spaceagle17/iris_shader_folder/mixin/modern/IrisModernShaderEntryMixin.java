@@ -1,16 +1,22 @@
 package com.spaceagle17.iris_shader_folder.mixin.modern;
 
+import com.llamalad7.mixinextras.sugar.Local;
 import com.spaceagle17.iris_shader_folder.IrisShaderFolder;
-import com.spaceagle17.iris_shader_folder.ShaderRecolorSystem;
+import com.spaceagle17.iris_shader_folder.PackDecisionEngine;
+import com.spaceagle17.iris_shader_folder.PackDisplayModel;
 
-import com.spaceagle17.iris_shader_folder.ShaderTooltipSystem;
+import com.spaceagle17.iris_shader_folder.ShaderPackCommentTarget;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
 import org.spongepowered.asm.mixin.*;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.ModifyVariable;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 
@@ -18,25 +24,24 @@ import java.lang.reflect.Method;
 @Debug(export = true)
 @Mixin(targets = "net.irisshaders.iris.gui.element.ShaderPackSelectionList$ShaderPackEntry", remap = false)
 public class IrisModernShaderEntryMixin {
+    // Built when the pack list was refreshed, replaced once the config generation changes
     @Unique
-    private String currentShaderName;
+    private PackDisplayModel displayModel;
 
-    @Unique
-    private String currentShaderNameRecolored;
-    
     @Unique
     private boolean isCurrentlyHovered;
-    
-    @Unique
-    private static boolean componentMethodInitialized = false;
+
+    // The screen of this entry, and the getters used once per entry to find it
     @Unique
-    private static Method cachedComponentMethod = null;
+    private Object commentScreen;
     @Unique
-    private static Class<?> cachedComponentClass = null;
+    private static MethodHandle listGetter;
     @Unique
-    private static boolean useConstructor = false;
+    private static MethodHandle screenGetter;
+
+    // Set once drawing a styled name failed, on versions where MutableComponent differs
     @Unique
-    private static Constructor<?> cachedConstructor = null;
+    private static boolean styledNameUnavailable = false;
 
     @Unique
     private static boolean commentMethodInitialized = false;
@@ -56,10 +61,44 @@ public class IrisModernShaderEntryMixin {
         remap = false
     )
     private String modifyNameVariable(String name) {
-        String recoloredName = ShaderRecolorSystem.getInstance().recolorShaderName(name);
-        this.currentShaderName = name;
-        this.currentShaderNameRecolored = recoloredName;
-        return recoloredName;
+        PackDisplayModel model = displayModel;
+        if (model == null || !name.equals(model.getName()) || !model.isCurrent()) {
+            model = PackDecisionEngine.getInstance().getDisplayModel(name);
+            displayModel = model;
+        }
+        return model.getRecoloredName();
+    }
+
+    @ModifyVariable(
+        method = {
+            "render",
+            "renderContent",
+            "method_25343",
+            "m_6311_"
+        },
+        at = @At(value = "STORE", ordinal = 0),
+        ordinal = 0,
+        require = 0,
+        remap = false
+    )
+    private MutableComponent useStyledName(MutableComponent text, @Local(name = "name") String name) {
+        // Drawing the prebuilt parts skips parsing § codes every frame. A name Iris shortened
+        // to fit the row, or an Iris version without this local, keeps the § code text.
+        // The § code text stays the fallback whenever the styled name cannot be used.
+        PackDisplayModel model = displayModel;
+        if (styledNameUnavailable || model == null || name != model.getRecoloredName() || name.indexOf('§') < 0) {
+            return text;
+        }
+        try {
+            Component styledName = model.getStyledName();
+            return styledName != null ? styledName.copy() : text;
+        } catch (Throwable e) {
+            styledNameUnavailable = true;
+            if (IrisShaderFolder.debugLoggingEnabled) {
+                System.out.println("Styled shader names are not supported, using § codes: " + e);
+            }
+            return text;
+        }
     }
     
     @ModifyVariable(
@@ -89,38 +128,30 @@ public class IrisModernShaderEntryMixin {
         at = @At("TAIL"))
     private void afterRenderText(CallbackInfo ci) {
         try {
-            if (!isCurrentlyHovered || currentShaderName == null) {
+            PackDisplayModel model = displayModel;
+            if (!isCurrentlyHovered || model == null) {
                 return;
             }
 
-            // Check if we have a tooltip for this shader
-            String tooltip = ShaderTooltipSystem.getInstance().getTooltip(currentShaderName);
-            
-            // Only proceed if we have a tooltip
-            if (tooltip != null && !tooltip.isEmpty()) {
-                // Get the screen object through reflection
-                Field listField = this.getClass().getDeclaredField("list");
-                listField.setAccessible(true);
-                Object listObj = listField.get(this);
-
-                Field screenField = listObj.getClass().getDeclaredField("screen");
-                screenField.setAccessible(true);
-                Object screen = screenField.get(listObj);
+            // Only proceed if we have a tooltip, the model keeps its components while it is unchanged
+            Component body = model.getTooltipBody();
+            Component title = body != null ? model.getTitle() : null;
+            if (title != null) {
+                Object screen = irisShaderFolder$getScreen();
 
-                // Create text components for the tooltip
-                Object[] components = irisShaderFolder$createTextComponents(currentShaderNameRecolored, tooltip);
-                if (components == null) {
-                    return;
+                // Set the shader pack comment, directly if our screen mixin is applied
+                boolean success = true;
+                if (screen instanceof ShaderPackCommentTarget) {
+                    ((ShaderPackCommentTarget) screen).irisShaderFolder$setShaderPackComment(title, body);
+                } else {
+                    success = irisShaderFolder$setShaderPackComment(screen, title, body);
                 }
 
-                // Set the shader pack comment
-                boolean success = irisShaderFolder$setShaderPackComment(screen, components[0], components[1]);
-
                 if (!success && IrisShaderFolder.debugLoggingEnabled) {
                     System.out.println("Could not find an appropriate method to set shader pack comment");
                 }
             }
-        } catch (Exception e) {
+        } catch (Throwable e) {
             if (IrisShaderFolder.debugLoggingEnabled) {
                 System.out.println("Error in shader tooltip handling: " + e.getMessage());
                 e.printStackTrace();
@@ -129,130 +160,30 @@ public class IrisModernShaderEntryMixin {
     }
 
     /**
-     * Creates text components using various approaches
-     * @return Array with [title, body] components or null if all approaches failed
+     * The screen showing this entry. Entries never move to another list, so it is looked up once.
      */
     @Unique
-    private Object[] irisShaderFolder$createTextComponents(String title, String body) {
-        // Check if we already found a working method
-        if (componentMethodInitialized && cachedComponentClass != null) {
-            try {
-                if (useConstructor && cachedConstructor != null) {
-                    // Use cached constructor
-                    Object titleComponent = cachedConstructor.newInstance(title);
-                    Object bodyComponent = cachedConstructor.newInstance(body);
-                    return new Object[]{titleComponent, bodyComponent};
-                } else if (cachedComponentMethod != null) {
-                    // Use cached method
-                    Object titleComponent = cachedComponentMethod.invoke(null, title);
-                    Object bodyComponent = cachedComponentMethod.invoke(null, body);
-                    return new Object[]{titleComponent, bodyComponent};
-                }
-            } catch (Exception ignored) {
-                // Fall back to searching again if cached approach fails
-                componentMethodInitialized = false;
-            }
-        }
-        
-        // If not initialized or cached approach failed, try to find a working method
-        
-        // Define known classes and methods
-        String[][] approaches = {
-                {"net.minecraft.class_2561", "method_43470"}, // Fabric modern
-                {"net.minecraft.network.chat.Component", "literal"}, // Forge/NeoForge modern
-                {"net.minecraft.network.chat.Component", "m_237113_"}, // 1.20.1 Mojang mappings
-                {"net.minecraft.network.chat.Component", "m_130674_"}, // 1.18.2 Mojang mappings
-        };
-
-        // Constructor approaches as fallback
-        String[] constructorClasses = {
-                "net.minecraft.class_2585", // Fabric old
-                "net.minecraft.network.chat.TextComponent", // Forge old
-                "net.minecraft.util.text.StringTextComponent" // Very old Forge
-        };
-
-        // Try each method approach
-        for (String[] approach : approaches) {
-            try {
-                Class<?> componentClass = Class.forName(approach[0]);
-                Method method = componentClass.getMethod(approach[1], String.class);
-                Object titleComponent = method.invoke(null, title);
-                Object bodyComponent = method.invoke(null, body);
-                
-                // Cache the successful method
-                cachedComponentClass = componentClass;
-                cachedComponentMethod = method;
-                useConstructor = false;
-                componentMethodInitialized = true;
-                
-                return new Object[]{titleComponent, bodyComponent};
-            } catch (Exception ignored) {
-                // Try next approach
-            }
-        }
-
-        // Try constructor approaches
-        for (String className : constructorClasses) {
-            try {
-                Class<?> componentClass = Class.forName(className);
-                Constructor<?> constructor = componentClass.getConstructor(String.class);
-                Object titleComponent = constructor.newInstance(title);
-                Object bodyComponent = constructor.newInstance(body);
-                
-                // Cache the successful constructor
-                cachedComponentClass = componentClass;
-                cachedConstructor = constructor;
-                useConstructor = true;
-                componentMethodInitialized = true;
-                
-                return new Object[]{titleComponent, bodyComponent};
-            } catch (Exception ignored) {
-                // Try next approach
-            }
-        }
-
-        // If all approaches failed, try reflection
-        try {
-            // Find any component class we can use
-            Class<?> componentClass = null;
-            for (String className : new String[]{
-                    "net.minecraft.network.chat.Component",
-                    "net.minecraft.text.Text",
-                    "net.minecraft.class_2561"
-            }) {
-                try {
-                    componentClass = Class.forName(className);
-                    break;
-                } catch (ClassNotFoundException ignored) {
-                    // Try next class
-                }
+    private Object irisShaderFolder$getScreen() throws Throwable {
+        if (commentScreen == null) {
+            if (listGetter == null) {
+                listGetter = irisShaderFolder$fieldGetter(this.getClass(), "list");
             }
-
-            if (componentClass != null) {
-                // Find any static method with String parameter
-                for (Method m : componentClass.getMethods()) {
-                    if (m.getParameterCount() == 1 &&
-                            m.getParameterTypes()[0] == String.class &&
-                            java.lang.reflect.Modifier.isStatic(m.getModifiers())) {
-                        try {
-                            Object titleComponent = m.invoke(null, title);
-                            Object bodyComponent = m.invoke(null, body);
-                            return new Object[]{titleComponent, bodyComponent};
-                        } catch (Exception ignored) {
-                            // Try next method
-                        }
-                    }
-                }
+            Object listObj = (Object) listGetter.invokeExact((Object) this);
+            if (screenGetter == null) {
+                screenGetter = irisShaderFolder$fieldGetter(listObj.getClass(), "screen");
             }
-        } catch (Exception ignored) {
-            // Reflection approach failed
+            commentScreen = (Object) screenGetter.invokeExact(listObj);
         }
+        return commentScreen;
+    }
 
-        if (IrisShaderFolder.debugLoggingEnabled) {
-            System.out.println("Failed to create text components - cannot set shader pack comment");
-        }
-        return null;
+    @Unique
+    private static MethodHandle irisShaderFolder$fieldGetter(Class<?> owner, String name) throws ReflectiveOperationException {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        return MethodHandles.lookup().unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
     }
+
     /**
      * Attempts to find and invoke the setShaderPackComment method on the screen object
      * @return true if successful, false otherwise
@@ -1,5 +1,7 @@
 package com.spaceagle17.iris_shader_folder.mixin.modern;
 
+import com.spaceagle17.iris_shader_folder.ShaderPackCommentTarget;
+import net.minecraft.client.gui.Font;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.network.chat.Component;
 import net.minecraft.util.FormattedCharSequence;
@@ -12,7 +14,7 @@ import java.util.Optional;
 @Pseudo
 @Debug(export = true)
 @Mixin(targets = "net.irisshaders.iris.gui.screen.ShaderPackScreen", remap = false)
-public class IrisModernShaderPackScreenMixin extends Screen {
+public class IrisModernShaderPackScreenMixin extends Screen implements ShaderPackCommentTarget {
     @Shadow private Optional<Component> hoveredElementCommentTitle;
     @Shadow private List<FormattedCharSequence> hoveredElementCommentBody;
     @Shadow private int hoveredElementCommentTimer;
@@ -21,10 +23,36 @@ public class IrisModernShaderPackScreenMixin extends Screen {
         super(component);
     }
 
-    @Unique
-    public void setShaderPackComment(Component title, Component body) {
-        this.hoveredElementCommentTitle = Optional.of(title);
-        this.hoveredElementCommentBody = new ArrayList<>(this.font.split(body, 306)); // 314 - 8 = 306
+    // Wrapped body lines of the last comment, kept until the text or font changes
+    @Unique private Component irisShaderFolder$lastTitle;
+    @Unique private Component irisShaderFolder$lastBody;
+    @Unique private Font irisShaderFolder$lastFont;
+    @Unique private Optional<Component> irisShaderFolder$titleOptional;
+    @Unique private List<FormattedCharSequence> irisShaderFolder$wrappedBody;
+    @Unique private List<FormattedCharSequence> irisShaderFolder$shownBody;
+
+    @Override
+    public void irisShaderFolder$setShaderPackComment(Component title, Component body) {
+        if (title != irisShaderFolder$lastTitle) {
+            irisShaderFolder$lastTitle = title;
+            irisShaderFolder$titleOptional = Optional.of(title);
+        }
+        if (body != irisShaderFolder$lastBody || this.font != irisShaderFolder$lastFont) {
+            irisShaderFolder$lastBody = body;
+            irisShaderFolder$lastFont = this.font;
+            irisShaderFolder$wrappedBody = new ArrayList<>(this.font.split(body, 306)); // 314 - 8 = 306
+            irisShaderFolder$shownBody = null;
+        }
+
+        // Same comment still shown, only keep it alive. Iris clears the body list once the timer
+        // runs out, so it gets a copy and the wrapped lines stay intact here.
+        if (this.hoveredElementCommentTitle != irisShaderFolder$titleOptional
+                || this.hoveredElementCommentBody != irisShaderFolder$shownBody
+                || irisShaderFolder$shownBody.size() != irisShaderFolder$wrappedBody.size()) {
+            irisShaderFolder$shownBody = new ArrayList<>(irisShaderFolder$wrappedBody);
+            this.hoveredElementCommentTitle = irisShaderFolder$titleOptional;
+            this.hoveredElementCommentBody = irisShaderFolder$shownBody;
+        }
         this.hoveredElementCommentTimer = 21;
     }
 }
\ No newline at end of file
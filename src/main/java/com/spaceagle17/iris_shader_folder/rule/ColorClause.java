@@ -0,0 +1,25 @@
+package com.spaceagle17.iris_shader_folder.rule;
+
+/**
+ * One "part_pattern [->] color_name" clause of a recolor rule.
+ */
+public final class ColorClause {
+    private final ShaderPattern partPattern;
+    private final String color;
+
+    public ColorClause(ShaderPattern partPattern, String color) {
+        this.partPattern = partPattern;
+        this.color = color;
+    }
+
+    public ShaderPattern getPartPattern() {
+        return partPattern;
+    }
+
+    /**
+     * The color as written in the config, either a color name or a § code
+     */
+    public String getColor() {
+        return color;
+    }
+}
@@ -0,0 +1,123 @@
+package com.spaceagle17.iris_shader_folder.rule;
+
+import java.util.regex.Pattern;
+
+/**
+ * One segment of a parsed shader pattern.
+ */
+public abstract class PatternNode {
+    private PatternNode() {
+    }
+
+    /**
+     * Appends the java.util.regex form of this segment.
+     */
+    public abstract void appendRegex(StringBuilder regex);
+
+    /**
+     * True for segments that match any text, {all} and {.*}
+     */
+    public boolean isAnything() {
+        return false;
+    }
+
+    /**
+     * Plain text, matched literally.
+     */
+    public static final class Literal extends PatternNode {
+        private final String text;
+
+        public Literal(String text) {
+            this.text = text;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public void appendRegex(StringBuilder regex) {
+            regex.append(Pattern.quote(text));
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * {version}, a version number like 1.2.3 or 4.5
+     */
+    public static final class Version extends PatternNode {
+        public static final Version INSTANCE = new Version();
+
+        private Version() {
+        }
+
+        @Override
+        public void appendRegex(StringBuilder regex) {
+            regex.append("\\d+(\\.\\d+)*");
+        }
+
+        @Override
+        public String toString() {
+            return "{version}";
+        }
+    }
+
+    /**
+     * {all}, matches everything
+     */
+    public static final class All extends PatternNode {
+        public static final All INSTANCE = new All();
+
+        private All() {
+        }
+
+        @Override
+        public void appendRegex(StringBuilder regex) {
+            regex.append(".*");
+        }
+
+        @Override
+        public boolean isAnything() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "{all}";
+        }
+    }
+
+    /**
+     * Any other {xyz} block, used as a raw regex.
+     */
+    public static final class Regex extends PatternNode {
+        private final String regex;
+
+        public Regex(String regex) {
+            this.regex = regex;
+        }
+
+        public String getRegex() {
+            return regex;
+        }
+
+        @Override
+        public void appendRegex(StringBuilder builder) {
+            builder.append(regex);
+        }
+
+        @Override
+        public boolean isAnything() {
+            return ".*".equals(regex);
+        }
+
+        @Override
+        public String toString() {
+            return "{" + regex + "}";
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.spaceagle17.iris_shader_folder.rule;
+
+import java.util.List;
+
+/**
+ * A parsed "shader_pattern [|] part_pattern [->] color_name [|] ..." line.
+ */
+public final class RecolorRule {
+    private final ShaderPattern shaderPattern;
+    private final List<ColorClause> clauses;
+
+    public RecolorRule(ShaderPattern shaderPattern, List<ColorClause> clauses) {
+        this.shaderPattern = shaderPattern;
+        this.clauses = clauses;
+    }
+
+    public ShaderPattern getShaderPattern() {
+        return shaderPattern;
+    }
+
+    public List<ColorClause> getClauses() {
+        return clauses;
+    }
+}
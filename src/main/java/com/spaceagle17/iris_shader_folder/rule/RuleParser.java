@@ -0,0 +1,137 @@
+package com.spaceagle17.iris_shader_folder.rule;
+
+import com.spaceagle17.iris_shader_folder.ConfigManager;
+import com.spaceagle17.iris_shader_folder.IrisShaderFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the filter, reorder, recolor and tooltip sections into a RuleSet.
+ * Separators are found with plain string scanning, keeping track of columns for error messages.
+ */
+public final class RuleParser {
+    private static final String RULE_SEPARATOR = "[|]";
+    private static final String COLOR_SEPARATOR = "[->]";
+
+    private final List<String> errors = new ArrayList<>();
+
+    private RuleParser() {
+    }
+
+    public static RuleSet parse(List<ConfigManager.SectionLine> filter, List<ConfigManager.SectionLine> reorder,
+                                List<ConfigManager.SectionLine> recolor, List<ConfigManager.SectionLine> tooltip) {
+        RuleParser parser = new RuleParser();
+        return new RuleSet(
+            parser.parsePatterns(filter),
+            parser.parsePatterns(reorder),
+            parser.parseRecolorRules(recolor),
+            parser.parseTooltipRules(tooltip),
+            parser.errors);
+    }
+
+    private List<ShaderPattern> parsePatterns(List<ConfigManager.SectionLine> lines) {
+        List<ShaderPattern> patterns = new ArrayList<>(lines.size());
+        for (ConfigManager.SectionLine line : lines) {
+            patterns.add(ShaderPattern.parse(line.getText(), line.getPosition()));
+        }
+        return patterns;
+    }
+
+    private List<RecolorRule> parseRecolorRules(List<ConfigManager.SectionLine> lines) {
+        List<RecolorRule> rules = new ArrayList<>(lines.size());
+        for (ConfigManager.SectionLine line : lines) {
+            String rule = line.getText();
+            List<Part> parts = split(rule, line.getPosition(), RULE_SEPARATOR, false);
+
+            if (parts.size() < 2) {
+                error("Invalid recolor rule format", line.getPosition(), rule);
+                continue;
+            }
+
+            List<ColorClause> clauses = new ArrayList<>(parts.size() - 1);
+            for (int i = 1; i < parts.size(); i++) {
+                Part part = parts.get(i);
+                List<Part> colorParts = split(part.text, part.position, COLOR_SEPARATOR, false);
+                if (colorParts.size() != 2) {
+                    error("Invalid color rule format", part.position, part.text);
+                    continue;
+                }
+                Part partPattern = colorParts.get(0);
+                clauses.add(new ColorClause(
+                    ShaderPattern.parse(partPattern.text, partPattern.position),
+                    colorParts.get(1).text));
+            }
+
+            if (!clauses.isEmpty()) {
+                rules.add(new RecolorRule(ShaderPattern.parse(parts.get(0).text, parts.get(0).position), clauses));
+            }
+        }
+        return rules;
+    }
+
+    private List<TooltipRule> parseTooltipRules(List<ConfigManager.SectionLine> lines) {
+        List<TooltipRule> rules = new ArrayList<>(lines.size());
+        for (ConfigManager.SectionLine line : lines) {
+            String rule = line.getText();
+            List<Part> parts = split(rule, line.getPosition(), RULE_SEPARATOR, true);
+
+            if (parts.size() != 2) {
+                error("Invalid tooltip rule format", line.getPosition(), rule);
+                continue;
+            }
+            rules.add(new TooltipRule(ShaderPattern.parse(parts.get(0).text, parts.get(0).position), parts.get(1).text));
+        }
+        return rules;
+    }
+
+    private void error(String message, SourcePosition position, String text) {
+        String error = message + " at " + position + ": " + text;
+        errors.add(error);
+        IrisShaderFolder.LOGGER.error(error);
+    }
+
+    /**
+     * Splits on a separator, trimming whitespace around each part like split("\\s*sep\\s*").
+     * With firstOnly only the first separator splits; otherwise trailing empty parts are dropped.
+     */
+    private static List<Part> split(String text, SourcePosition position, String separator, boolean firstOnly) {
+        List<Part> parts = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            int index = text.indexOf(separator, start);
+            if (index == -1 || (firstOnly && !parts.isEmpty())) {
+                parts.add(Part.of(text, start, text.length(), position));
+                break;
+            }
+            parts.add(Part.of(text, start, index, position));
+            start = index + separator.length();
+        }
+
+        if (!firstOnly) {
+            while (parts.size() > 1 && parts.get(parts.size() - 1).text.isEmpty()) {
+                parts.remove(parts.size() - 1);
+            }
+            if (parts.size() == 1 && parts.get(0).text.isEmpty()) {
+                parts.clear();
+            }
+        }
+        return parts;
+    }
+
+    private static final class Part {
+        private final String text;
+        private final SourcePosition position;
+
+        private Part(String text, SourcePosition position) {
+            this.text = text;
+            this.position = position;
+        }
+
+        static Part of(String text, int start, int end, SourcePosition linePosition) {
+            while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+            return new Part(text.substring(start, end), linePosition.withColumnOffset(start));
+        }
+    }
+}
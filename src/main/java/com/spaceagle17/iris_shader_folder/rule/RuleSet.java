@@ -0,0 +1,68 @@
+package com.spaceagle17.iris_shader_folder.rule;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * All rules of one config load, parsed once and shared by the filter, reorder,
+ * recolor and tooltip systems. Instances are immutable; a reload produces a new RuleSet
+ * with a higher generation.
+ */
+public final class RuleSet {
+    private static final AtomicInteger GENERATIONS = new AtomicInteger();
+
+    public static final RuleSet EMPTY = new RuleSet(
+        Collections.<ShaderPattern>emptyList(),
+        Collections.<ShaderPattern>emptyList(),
+        Collections.<RecolorRule>emptyList(),
+        Collections.<TooltipRule>emptyList(),
+        Collections.<String>emptyList());
+
+    private final int generation;
+    private final List<ShaderPattern> filterPatterns;
+    private final List<ShaderPattern> reorderPatterns;
+    private final List<RecolorRule> recolorRules;
+    private final List<TooltipRule> tooltipRules;
+    private final List<String> errors;
+
+    RuleSet(List<ShaderPattern> filterPatterns, List<ShaderPattern> reorderPatterns,
+            List<RecolorRule> recolorRules, List<TooltipRule> tooltipRules, List<String> errors) {
+        this.generation = GENERATIONS.incrementAndGet();
+        this.filterPatterns = Collections.unmodifiableList(filterPatterns);
+        this.reorderPatterns = Collections.unmodifiableList(reorderPatterns);
+        this.recolorRules = Collections.unmodifiableList(recolorRules);
+        this.tooltipRules = Collections.unmodifiableList(tooltipRules);
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public List<ShaderPattern> getFilterPatterns() {
+        return filterPatterns;
+    }
+
+    /**
+     * Reorder patterns, the index in this list is the target position of the rule
+     */
+    public List<ShaderPattern> getReorderPatterns() {
+        return reorderPatterns;
+    }
+
+    public List<RecolorRule> getRecolorRules() {
+        return recolorRules;
+    }
+
+    public List<TooltipRule> getTooltipRules() {
+        return tooltipRules;
+    }
+
+    /**
+     * Error messages for rules that could not be parsed, with their source positions
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+}
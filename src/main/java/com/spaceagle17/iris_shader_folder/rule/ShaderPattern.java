@@ -0,0 +1,160 @@
+package com.spaceagle17.iris_shader_folder.rule;
+
+import com.spaceagle17.iris_shader_folder.util.CompiledShaderPattern;
+import com.spaceagle17.iris_shader_folder.util.ShaderPatternUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A user pattern parsed into literal, {version}, {all} and raw regex segments.
+ * Adjacent literal text is merged into a single Literal node.
+ */
+public final class ShaderPattern {
+    private final String source;
+    private final List<PatternNode> nodes;
+    private final SourcePosition position;
+    private String regex;
+    // Patterns are shared between threads, the result and the fact that compiling was attempted
+    // are published together so no reader sees an attempt without its result
+    private volatile CompileResult compileResult;
+
+    private ShaderPattern(String source, List<PatternNode> nodes, SourcePosition position) {
+        this.source = source;
+        this.nodes = nodes;
+        this.position = position;
+    }
+
+    public static ShaderPattern parse(String source) {
+        return parse(source, SourcePosition.UNKNOWN);
+    }
+
+    public static ShaderPattern parse(String source, SourcePosition position) {
+        List<PatternNode> nodes = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int currentPos = 0;
+
+        while (currentPos < source.length()) {
+            // Find next opening brace
+            int openBrace = source.indexOf('{', currentPos);
+
+            if (openBrace == -1) {
+                // No more braces, the rest is literal
+                literal.append(source, currentPos, source.length());
+                break;
+            }
+
+            literal.append(source, currentPos, openBrace);
+
+            int closeBrace = ShaderPatternUtil.findMatchingCloseBrace(source, openBrace);
+            if (closeBrace == -1) {
+                // No matching closing brace, treat the rest as literal
+                literal.append(source, openBrace, source.length());
+                break;
+            }
+
+            flushLiteral(nodes, literal);
+
+            String braceContent = source.substring(openBrace + 1, closeBrace);
+            if ("version".equals(braceContent)) {
+                nodes.add(PatternNode.Version.INSTANCE);
+            } else if ("all".equals(braceContent)) {
+                nodes.add(PatternNode.All.INSTANCE);
+            } else {
+                nodes.add(new PatternNode.Regex(braceContent));
+            }
+
+            currentPos = closeBrace + 1;
+        }
+        flushLiteral(nodes, literal);
+
+        return new ShaderPattern(source, Collections.unmodifiableList(nodes), position);
+    }
+
+    private static void flushLiteral(List<PatternNode> nodes, StringBuilder literal) {
+        if (literal.length() > 0) {
+            nodes.add(new PatternNode.Literal(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<PatternNode> getNodes() {
+        return nodes;
+    }
+
+    public SourcePosition getPosition() {
+        return position;
+    }
+
+    /**
+     * True if the pattern contains no placeholder or regex block
+     */
+    public boolean isLiteral() {
+        return nodes.isEmpty() || (nodes.size() == 1 && nodes.get(0) instanceof PatternNode.Literal);
+    }
+
+    /**
+     * True if the pattern only uses literals, {version}, {all} and {.*}
+     */
+    public boolean isSimple() {
+        for (PatternNode node : nodes) {
+            if (node instanceof PatternNode.Regex && !node.isAnything()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The unanchored regex for this pattern, as produced by ShaderPatternUtil.convertToRegex
+     */
+    public String toRegex() {
+        if (regex == null) {
+            StringBuilder builder = new StringBuilder();
+            for (PatternNode node : nodes) {
+                node.appendRegex(builder);
+            }
+            regex = builder.toString();
+        }
+        return regex;
+    }
+
+    /**
+     * The shared compiled form of this pattern for matching pack names, or null if it is invalid
+     */
+    public CompiledShaderPattern compile() {
+        CompileResult result = compileResult;
+        if (result == null) {
+            // Threads racing here compile the same source, either result can be kept
+            result = new CompileResult(ShaderPatternUtil.compilePattern(source));
+            compileResult = result;
+        }
+        return result.pattern;
+    }
+
+    public boolean matches(String name) {
+        CompiledShaderPattern pattern = compile();
+        return pattern != null && pattern.matches(name);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * The compiled pattern, null if the pattern is invalid
+     */
+    private static final class CompileResult {
+        private final CompiledShaderPattern pattern;
+
+        CompileResult(CompiledShaderPattern pattern) {
+            this.pattern = pattern;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.spaceagle17.iris_shader_folder.rule;
+
+/**
+ * Where a rule came from in the config file, used in error messages.
+ */
+public final class SourcePosition {
+    public static final SourcePosition UNKNOWN = new SourcePosition("", 0, 0);
+
+    private final String section;
+    private final int line;
+    private final int column;
+
+    public SourcePosition(String section, int line, int column) {
+        this.section = section;
+        this.line = line;
+        this.column = column;
+    }
+
+    public String getSection() {
+        return section;
+    }
+
+    /**
+     * 1-based line in the config file, 0 if unknown
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * 1-based column in the config file, 0 if unknown
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    public SourcePosition withColumnOffset(int offset) {
+        return new SourcePosition(section, line, column + offset);
+    }
+
+    @Override
+    public String toString() {
+        if (line == 0) {
+            return section.isEmpty() ? "unknown position" : section + " section";
+        }
+        return section + " section, line " + line + ", column " + column;
+    }
+}
@@ -0,0 +1,22 @@
+package com.spaceagle17.iris_shader_folder.rule;
+
+/**
+ * A parsed "shader_pattern [|] tooltip_text" line.
+ */
+public final class TooltipRule {
+    private final ShaderPattern shaderPattern;
+    private final String tooltipText;
+
+    public TooltipRule(ShaderPattern shaderPattern, String tooltipText) {
+        this.shaderPattern = shaderPattern;
+        this.tooltipText = tooltipText;
+    }
+
+    public ShaderPattern getShaderPattern() {
+        return shaderPattern;
+    }
+
+    public String getTooltipText() {
+        return tooltipText;
+    }
+}
@@ -0,0 +1,183 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A map bounded by the total weight of its entries, the least recently used entries are
+ * evicted first. Every operation locks the cache, so it can be shared between the render
+ * thread and background threads. Lookups count hits and misses, evictions are counted too.
+ */
+public final class BoundedCache<K, V> {
+    private final String name;
+    private final long maxWeight;
+    private final Weigher<? super K, ? super V> weigher;
+    private final LinkedHashMap<K, V> map = new LinkedHashMap<>(64, 0.75f, true);
+    private long weight = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BoundedCache(String name, long maxWeight, Weigher<? super K, ? super V> weigher) {
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * A cache holding at most the given number of entries
+     */
+    public static <K, V> BoundedCache<K, V> ofSize(String name, int maxEntries) {
+        return new BoundedCache<>(name, maxEntries, (key, value) -> 1);
+    }
+
+    /**
+     * Returns the cached value, or null. Counts as a hit or miss.
+     */
+    public V get(K key) {
+        V value;
+        synchronized (map) {
+            value = map.get(key);
+        }
+        (value != null ? hits : misses).incrementAndGet();
+        return value;
+    }
+
+    /**
+     * Returns the cached value, computing it outside the lock on a miss. If another thread
+     * cached a value for the key meanwhile, that first value is kept and returned.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            V existing = putIfAbsent(key, value);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return value;
+    }
+
+    public boolean containsKey(K key) {
+        synchronized (map) {
+            return map.containsKey(key);
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (map) {
+            insert(key, value);
+        }
+    }
+
+    /**
+     * Caches the value unless the key already has one
+     * @return the value that was already cached, or null
+     */
+    public V putIfAbsent(K key, V value) {
+        synchronized (map) {
+            V existing = map.get(key);
+            if (existing == null) {
+                insert(key, value);
+            }
+            return existing;
+        }
+    }
+
+    /**
+     * Replaces the value of a key only if it is still the expected one
+     */
+    public boolean replace(K key, V expected, V value) {
+        synchronized (map) {
+            if (map.get(key) != expected) {
+                return false;
+            }
+            insert(key, value);
+            return true;
+        }
+    }
+
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+            weight = 0;
+        }
+    }
+
+    /**
+     * A copy of the cached entries, oldest first
+     */
+    public Map<K, V> snapshot() {
+        synchronized (map) {
+            return new LinkedHashMap<>(map);
+        }
+    }
+
+    private void insert(K key, V value) {
+        long entryWeight = weigher.weigh(key, value);
+        V previous = map.remove(key);
+        if (previous != null) {
+            weight -= weigher.weigh(key, previous);
+        }
+        if (entryWeight > maxWeight) {
+            // Would evict everything else and still not fit
+            evictions.incrementAndGet();
+            return;
+        }
+
+        map.put(key, value);
+        weight += entryWeight;
+        Iterator<Map.Entry<K, V>> eldest = map.entrySet().iterator();
+        while (weight > maxWeight) {
+            Map.Entry<K, V> entry = eldest.next();
+            weight -= weigher.weigh(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public long getWeight() {
+        synchronized (map) {
+            return weight;
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public String describeStats() {
+        long h = hits.get();
+        long m = misses.get();
+        long total = h + m;
+        double hitRate = total == 0 ? 0.0 : (h * 100.0) / total;
+        return String.format("%s: %d entries, weight %d of %d, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+            name, size(), getWeight(), maxWeight, h, m, hitRate, evictions.get());
+    }
+
+    /**
+     * The weight an entry counts with against the bound of the cache
+     */
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+}
@@ -0,0 +1,56 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+/**
+ * CharSequence wrapper that counts character reads and aborts once a step budget is used up.
+ * A backtracking regex reads characters on every step, so this bounds how long one match can run.
+ */
+public final class BudgetedCharSequence implements CharSequence {
+    private final CharSequence text;
+    private final long budget;
+    private long steps = 0;
+
+    public BudgetedCharSequence(CharSequence text, long budget) {
+        this.text = text;
+        this.budget = budget;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (++steps > budget) {
+            throw StepBudgetExceededException.INSTANCE;
+        }
+        return text.charAt(index);
+    }
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end);
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+
+    /**
+     * Thrown when a match exceeds its step budget. Shared and stackless since it is only used for control flow.
+     */
+    public static final class StepBudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        static final StepBudgetExceededException INSTANCE = new StepBudgetExceededException();
+
+        private StepBudgetExceededException() {
+            super("Pattern step budget exceeded", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * A user shader pattern that has already been converted to regex and compiled.
+ * The regex is anchored and accepts an optional .zip extension, just like matchesPattern.
+ */
+public final class CompiledShaderPattern {
+    private final String source;
+    private final String regex;
+    private final Pattern pattern;
+    private final PatternEngine engine;
+    private final PatternEngine.RegexMatcher matcher;
+
+    CompiledShaderPattern(String source, String regex, Pattern pattern, PatternEngine engine, PatternEngine.RegexMatcher matcher) {
+        this.source = source;
+        this.regex = regex;
+        this.pattern = pattern;
+        this.engine = engine;
+        this.matcher = matcher;
+    }
+
+    /**
+     * The pattern as written by the user in the config file
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * The final anchored regex, including the optional .zip extension
+     */
+    public String getRegex() {
+        return regex;
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * The engine this pattern is matched with
+     */
+    public PatternEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Full-match test. Backtracking engines run against a step budget; a pattern that exceeds
+     * it is quarantined and never matches again for the rest of the session.
+     */
+    public boolean matches(CharSequence text) {
+        if (engine.isLinearTime()) {
+            return matcher.matches(text);
+        }
+        if (PatternQuarantine.isQuarantined(PatternQuarantine.SHADER_PATTERN, source)) {
+            return false;
+        }
+
+        BudgetedCharSequence budgeted = new BudgetedCharSequence(text, PatternQuarantine.STEP_BUDGET);
+        try {
+            return matcher.matches(budgeted);
+        } catch (BudgetedCharSequence.StepBudgetExceededException e) {
+            PatternQuarantine.quarantine(PatternQuarantine.SHADER_PATTERN, source, budgeted.getSteps(), text);
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,32 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * The java.util.regex backend. Supports every expression but may backtrack exponentially.
+ */
+public final class JdkPatternEngine implements PatternEngine {
+    public static final JdkPatternEngine INSTANCE = new JdkPatternEngine();
+
+    private JdkPatternEngine() {
+    }
+
+    @Override
+    public String getName() {
+        return "java.util.regex";
+    }
+
+    @Override
+    public boolean isLinearTime() {
+        return false;
+    }
+
+    @Override
+    public RegexMatcher compile(String regex, boolean caseInsensitive) {
+        return wrap(Pattern.compile(regex, caseInsensitive ? Pattern.CASE_INSENSITIVE : 0));
+    }
+
+    public static RegexMatcher wrap(final Pattern pattern) {
+        return text -> pattern.matcher(text).matches();
+    }
+}
@@ -0,0 +1,747 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A regex backend that never backtracks. Expressions are compiled to a Thompson NFA and
+ * simulated RE2-style, keeping the set of live states per input code point, so matching
+ * costs at most O(text length * program size) no matter how the pattern is written.
+ * Like java.util.regex the text and the pattern are read by code point, so a supplementary
+ * character such as an emoji is one character for '.' and character classes.
+ *
+ * Only the regular subset of java.util.regex is supported: literals, \Q..\E, '.', character
+ * classes, \d \w \s (and negations), groups, alternation, greedy and lazy quantifiers and
+ * the ^ and $ anchors. Anything else (backreferences, lookaround, possessive quantifiers,
+ * inline flags, word boundaries, ...) makes compile() return null so the JDK engine is used.
+ * For the supported subset the answer of a full match is identical to java.util.regex.
+ */
+public final class LinearPatternEngine implements PatternEngine {
+    public static final LinearPatternEngine INSTANCE = new LinearPatternEngine();
+
+    // Bounds the program size, counted repetitions like {1,500} are expanded
+    private static final int MAX_STATES = 10000;
+
+    private static final int EDGE_NONE = 0;
+    private static final int EDGE_CHAR = 1;
+    private static final int EDGE_CLASS = 2;
+    private static final int EDGE_ANY = 3;
+    private static final int EDGE_BEGIN = 4;
+    private static final int EDGE_END = 5;
+
+    private LinearPatternEngine() {
+    }
+
+    @Override
+    public String getName() {
+        return "linear";
+    }
+
+    @Override
+    public boolean isLinearTime() {
+        return true;
+    }
+
+    @Override
+    public RegexMatcher compile(String regex, boolean caseInsensitive) {
+        try {
+            Node root = new Parser(regex).parse();
+            Builder builder = new Builder(caseInsensitive);
+            int start = builder.newState();
+            int end = builder.compile(root, start);
+            return new Program(builder, start, end, caseInsensitive);
+        } catch (UnsupportedPatternException e) {
+            return null;
+        }
+    }
+
+    private static final class UnsupportedPatternException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedPatternException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Syntax tree
+    // ---------------------------------------------------------------------------------------
+
+    private abstract static class Node {
+    }
+
+    private static final class CharNode extends Node {
+        final int c;
+
+        CharNode(int c) {
+            this.c = c;
+        }
+    }
+
+    private static final class ClassNode extends Node {
+        final CharClass charClass;
+
+        ClassNode(CharClass charClass) {
+            this.charClass = charClass;
+        }
+    }
+
+    private static final class AnyNode extends Node {
+    }
+
+    private static final class AnchorNode extends Node {
+        final boolean begin;
+
+        AnchorNode(boolean begin) {
+            this.begin = begin;
+        }
+    }
+
+    private static final class ConcatNode extends Node {
+        final List<Node> items = new ArrayList<>();
+    }
+
+    private static final class AltNode extends Node {
+        final List<Node> branches = new ArrayList<>();
+    }
+
+    private static final class RepeatNode extends Node {
+        final Node node;
+        final int min;
+        final int max; // -1 means unbounded
+
+        RepeatNode(Node node, int min, int max) {
+            this.node = node;
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    /**
+     * A set of code points made of ranges and the predefined \d \w \s classes.
+     */
+    private static final class CharClass {
+        private final List<int[]> ranges = new ArrayList<>();
+        private final List<Character> predefined = new ArrayList<>();
+        private boolean negated;
+
+        boolean matches(int c, boolean caseInsensitive) {
+            boolean found = contains(c);
+            if (!found && caseInsensitive && isAsciiLetter(c)) {
+                found = contains(toggleCase(c));
+            }
+            return found != negated;
+        }
+
+        private boolean contains(int c) {
+            for (int[] range : ranges) {
+                if (c >= range[0] && c <= range[1]) {
+                    return true;
+                }
+            }
+            for (char p : predefined) {
+                if (matchesPredefined(p, c)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        static boolean matchesPredefined(char type, int c) {
+            switch (type) {
+                case 'd': return c >= '0' && c <= '9';
+                case 'D': return !(c >= '0' && c <= '9');
+                case 'w': return isWordChar(c);
+                case 'W': return !isWordChar(c);
+                case 's': return isSpace(c);
+                case 'S': return !isSpace(c);
+                default: return false;
+            }
+        }
+
+        private static boolean isWordChar(int c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+        }
+
+        private static boolean isSpace(int c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Parser for the supported subset of java.util.regex syntax
+    // ---------------------------------------------------------------------------------------
+
+    private static final class Parser {
+        private final String regex;
+        private int pos = 0;
+
+        Parser(String regex) {
+            this.regex = regex;
+        }
+
+        Node parse() throws UnsupportedPatternException {
+            Node node = parseAlternation();
+            if (pos != regex.length()) {
+                throw new UnsupportedPatternException();
+            }
+            return node;
+        }
+
+        private Node parseAlternation() throws UnsupportedPatternException {
+            Node first = parseConcat();
+            if (!peek('|')) {
+                return first;
+            }
+            AltNode alt = new AltNode();
+            alt.branches.add(first);
+            while (peek('|')) {
+                pos++;
+                alt.branches.add(parseConcat());
+            }
+            return alt;
+        }
+
+        private Node parseConcat() throws UnsupportedPatternException {
+            ConcatNode concat = new ConcatNode();
+            while (pos < regex.length() && !peek('|') && !peek(')')) {
+                if (regex.startsWith("\\Q", pos)) {
+                    parseQuoted(concat);
+                    continue;
+                }
+                concat.items.add(parseQuantifiers(parseAtom()));
+            }
+            return concat.items.size() == 1 ? concat.items.get(0) : concat;
+        }
+
+        private void parseQuoted(ConcatNode concat) throws UnsupportedPatternException {
+            pos += 2;
+            int end = regex.indexOf("\\E", pos);
+            String literal = end == -1 ? regex.substring(pos) : regex.substring(pos, end);
+            pos = end == -1 ? regex.length() : end + 2;
+
+            for (int i = 0; i < literal.length(); ) {
+                int c = literal.codePointAt(i);
+                i += Character.charCount(c);
+                Node node = new CharNode(c);
+                // A quantifier after \E applies to the last quoted character
+                concat.items.add(i == literal.length() ? parseQuantifiers(node) : node);
+            }
+        }
+
+        private Node parseQuantifiers(Node atom) throws UnsupportedPatternException {
+            Node node = atom;
+            while (pos < regex.length()) {
+                char c = regex.charAt(pos);
+                int min;
+                int max;
+                if (c == '*') {
+                    min = 0;
+                    max = -1;
+                    pos++;
+                } else if (c == '+') {
+                    min = 1;
+                    max = -1;
+                    pos++;
+                } else if (c == '?') {
+                    min = 0;
+                    max = 1;
+                    pos++;
+                } else if (c == '{') {
+                    int close = regex.indexOf('}', pos);
+                    if (close == -1) {
+                        throw new UnsupportedPatternException();
+                    }
+                    String[] bounds = regex.substring(pos + 1, close).split(",", -1);
+                    try {
+                        min = Integer.parseInt(bounds[0].trim());
+                        if (bounds.length == 1) {
+                            max = min;
+                        } else if (bounds.length == 2) {
+                            max = bounds[1].trim().isEmpty() ? -1 : Integer.parseInt(bounds[1].trim());
+                        } else {
+                            throw new UnsupportedPatternException();
+                        }
+                    } catch (NumberFormatException e) {
+                        throw new UnsupportedPatternException();
+                    }
+                    if (max != -1 && max < min) {
+                        throw new UnsupportedPatternException();
+                    }
+                    pos = close + 1;
+                } else {
+                    break;
+                }
+
+                if (node != atom) {
+                    // java.util.regex does not nest stacked quantifiers like a{2}{0,2} the way
+                    // an automaton would, so those are left to the JDK engine
+                    throw new UnsupportedPatternException();
+                }
+                if (peek('?')) {
+                    // Lazy quantifiers only change which match is found, not whether one exists
+                    pos++;
+                } else if (peek('+')) {
+                    // Possessive quantifiers can reject inputs a regular automaton would accept
+                    throw new UnsupportedPatternException();
+                }
+                if (containsAnchor(node)) {
+                    // java.util.regex ends a loop after an empty iteration, which only differs
+                    // from automaton semantics when emptiness depends on the position
+                    throw new UnsupportedPatternException();
+                }
+                node = new RepeatNode(node, min, max);
+            }
+            return node;
+        }
+
+        private Node parseAtom() throws UnsupportedPatternException {
+            int c = regex.codePointAt(pos);
+            pos += Character.charCount(c);
+            switch (c) {
+                case '(':
+                    return parseGroup();
+                case '[':
+                    return new ClassNode(parseClass());
+                case '.':
+                    return new AnyNode();
+                case '^':
+                    return new AnchorNode(true);
+                case '$':
+                    return new AnchorNode(false);
+                case '\\':
+                    return parseEscape();
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    throw new UnsupportedPatternException();
+                default:
+                    return new CharNode(c);
+            }
+        }
+
+        private Node parseGroup() throws UnsupportedPatternException {
+            if (peek('?')) {
+                pos++;
+                if (peek(':')) {
+                    pos++;
+                } else if (peek('<') && pos + 1 < regex.length() && Character.isLetter(regex.charAt(pos + 1))) {
+                    int close = regex.indexOf('>', pos);
+                    if (close == -1) {
+                        throw new UnsupportedPatternException();
+                    }
+                    pos = close + 1;
+                } else {
+                    // Lookaround, inline flags, atomic groups, ...
+                    throw new UnsupportedPatternException();
+                }
+            }
+            Node node = parseAlternation();
+            if (!peek(')')) {
+                throw new UnsupportedPatternException();
+            }
+            pos++;
+            return node;
+        }
+
+        private Node parseEscape() throws UnsupportedPatternException {
+            if (pos >= regex.length()) {
+                throw new UnsupportedPatternException();
+            }
+            char c = regex.charAt(pos);
+            if ("dDwWsS".indexOf(c) >= 0) {
+                pos++;
+                CharClass charClass = new CharClass();
+                charClass.predefined.add(c);
+                return new ClassNode(charClass);
+            }
+            return new CharNode(parseEscapedChar());
+        }
+
+        /**
+         * Parses an escape that stands for a single character, pos points after the backslash.
+         */
+        private int parseEscapedChar() throws UnsupportedPatternException {
+            int c = regex.codePointAt(pos);
+            pos += Character.charCount(c);
+            switch (c) {
+                case 't': return '\t';
+                case 'n': return '\n';
+                case 'r': return '\r';
+                case 'f': return '\f';
+                case 'a': return '\u0007';
+                case 'e': return '\u001B';
+                case 'x': return parseHex(2);
+                case 'u':
+                    int unit = parseHex(4);
+                    if (Character.isSurrogate((char) unit)) {
+                        // java.util.regex joins escaped surrogate pairs into one code point
+                        throw new UnsupportedPatternException();
+                    }
+                    return unit;
+                default:
+                    if (Character.isLetterOrDigit(c)) {
+                        // Backreferences, \b, \p{...}, \Q inside classes, ...
+                        throw new UnsupportedPatternException();
+                    }
+                    return c;
+            }
+        }
+
+        private int parseHex(int digits) throws UnsupportedPatternException {
+            if (pos + digits > regex.length()) {
+                throw new UnsupportedPatternException();
+            }
+            try {
+                int value = Integer.parseInt(regex.substring(pos, pos + digits), 16);
+                pos += digits;
+                return value;
+            } catch (NumberFormatException e) {
+                throw new UnsupportedPatternException();
+            }
+        }
+
+        private CharClass parseClass() throws UnsupportedPatternException {
+            CharClass charClass = new CharClass();
+            if (peek('^')) {
+                charClass.negated = true;
+                pos++;
+            }
+            if (peek(']')) {
+                throw new UnsupportedPatternException();
+            }
+
+            while (pos < regex.length() && !peek(']')) {
+                int c = regex.codePointAt(pos);
+                if (c == '[' || regex.startsWith("&&", pos)) {
+                    // Nested classes and intersections
+                    throw new UnsupportedPatternException();
+                }
+
+                int low;
+                pos += Character.charCount(c);
+                if (c == '\\') {
+                    if (pos < regex.length() && "dDwWsS".indexOf(regex.charAt(pos)) >= 0) {
+                        charClass.predefined.add(regex.charAt(pos++));
+                        continue;
+                    }
+                    low = parseEscapedChar();
+                } else {
+                    low = c;
+                }
+
+                int high = low;
+                if (peek('-') && pos + 1 < regex.length() && regex.charAt(pos + 1) != ']') {
+                    pos++;
+                    int next = regex.codePointAt(pos);
+                    pos += Character.charCount(next);
+                    if (next == '[') {
+                        throw new UnsupportedPatternException();
+                    }
+                    if (next == '\\') {
+                        if (pos < regex.length() && "dDwWsS".indexOf(regex.charAt(pos)) >= 0) {
+                            throw new UnsupportedPatternException();
+                        }
+                        high = parseEscapedChar();
+                    } else {
+                        high = next;
+                    }
+                    if (high < low) {
+                        throw new UnsupportedPatternException();
+                    }
+                }
+                charClass.ranges.add(new int[]{low, high});
+            }
+
+            if (!peek(']')) {
+                throw new UnsupportedPatternException();
+            }
+            pos++;
+            return charClass;
+        }
+
+        private static boolean containsAnchor(Node node) {
+            if (node instanceof AnchorNode) {
+                return true;
+            }
+            if (node instanceof ConcatNode) {
+                for (Node item : ((ConcatNode) node).items) {
+                    if (containsAnchor(item)) return true;
+                }
+            } else if (node instanceof AltNode) {
+                for (Node branch : ((AltNode) node).branches) {
+                    if (containsAnchor(branch)) return true;
+                }
+            } else if (node instanceof RepeatNode) {
+                return containsAnchor(((RepeatNode) node).node);
+            }
+            return false;
+        }
+
+        private boolean peek(char c) {
+            return pos < regex.length() && regex.charAt(pos) == c;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Thompson construction, every state has at most one consuming edge plus epsilon edges
+    // ---------------------------------------------------------------------------------------
+
+    private static final class Builder {
+        private final boolean caseInsensitive;
+        private final List<Integer> edgeKind = new ArrayList<>();
+        private final List<Integer> edgeChar = new ArrayList<>();
+        private final List<CharClass> edgeClass = new ArrayList<>();
+        private final List<Integer> edgeTarget = new ArrayList<>();
+        private final List<List<Integer>> epsilon = new ArrayList<>();
+
+        Builder(boolean caseInsensitive) {
+            this.caseInsensitive = caseInsensitive;
+        }
+
+        /**
+         * Compiles node starting at from (which has no consuming edge yet) and returns the
+         * state reached after it, which again has no consuming edge.
+         */
+        int compile(Node node, int from) throws UnsupportedPatternException {
+            if (node instanceof CharNode) {
+                int c = ((CharNode) node).c;
+                return edge(from, EDGE_CHAR, caseInsensitive ? foldCase(c) : c, null);
+            }
+            if (node instanceof ClassNode) {
+                return edge(from, EDGE_CLASS, 0, ((ClassNode) node).charClass);
+            }
+            if (node instanceof AnyNode) {
+                return edge(from, EDGE_ANY, 0, null);
+            }
+            if (node instanceof AnchorNode) {
+                return edge(from, ((AnchorNode) node).begin ? EDGE_BEGIN : EDGE_END, 0, null);
+            }
+            if (node instanceof ConcatNode) {
+                int current = from;
+                for (Node item : ((ConcatNode) node).items) {
+                    current = compile(item, current);
+                }
+                return current;
+            }
+            if (node instanceof AltNode) {
+                int join = newState();
+                for (Node branch : ((AltNode) node).branches) {
+                    int start = newState();
+                    epsilon.get(from).add(start);
+                    epsilon.get(compile(branch, start)).add(join);
+                }
+                return join;
+            }
+
+            RepeatNode repeat = (RepeatNode) node;
+            int current = from;
+            for (int i = 0; i < repeat.min; i++) {
+                current = compile(repeat.node, current);
+            }
+
+            int exit = newState();
+            if (repeat.max == -1) {
+                int loop = newState();
+                epsilon.get(current).add(loop);
+                epsilon.get(compile(repeat.node, loop)).add(loop);
+                epsilon.get(loop).add(exit);
+            } else {
+                for (int i = repeat.min; i < repeat.max; i++) {
+                    epsilon.get(current).add(exit);
+                    current = compile(repeat.node, current);
+                }
+                epsilon.get(current).add(exit);
+            }
+            return exit;
+        }
+
+        private int edge(int from, int kind, int c, CharClass charClass) throws UnsupportedPatternException {
+            int target = newState();
+            edgeKind.set(from, kind);
+            edgeChar.set(from, c);
+            edgeClass.set(from, charClass);
+            edgeTarget.set(from, target);
+            return target;
+        }
+
+        int newState() throws UnsupportedPatternException {
+            if (edgeKind.size() >= MAX_STATES) {
+                throw new UnsupportedPatternException();
+            }
+            edgeKind.add(EDGE_NONE);
+            edgeChar.add(0);
+            edgeClass.add(null);
+            edgeTarget.add(-1);
+            epsilon.add(new ArrayList<Integer>(2));
+            return edgeKind.size() - 1;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Simulation
+    // ---------------------------------------------------------------------------------------
+
+    private static final class Program implements RegexMatcher {
+        private final boolean caseInsensitive;
+        private final int[] edgeKind;
+        private final int[] edgeChar;
+        private final CharClass[] edgeClass;
+        private final int[] edgeTarget;
+        private final int[][] epsilon;
+        private final int start;
+        private final int accept;
+
+        Program(Builder builder, int start, int accept, boolean caseInsensitive) {
+            int size = builder.edgeKind.size();
+            this.caseInsensitive = caseInsensitive;
+            this.edgeKind = new int[size];
+            this.edgeChar = new int[size];
+            this.edgeClass = new CharClass[size];
+            this.edgeTarget = new int[size];
+            this.epsilon = new int[size][];
+            for (int i = 0; i < size; i++) {
+                edgeKind[i] = builder.edgeKind.get(i);
+                edgeChar[i] = builder.edgeChar.get(i);
+                edgeClass[i] = builder.edgeClass.get(i);
+                edgeTarget[i] = builder.edgeTarget.get(i);
+                List<Integer> eps = builder.epsilon.get(i);
+                epsilon[i] = new int[eps.size()];
+                for (int j = 0; j < eps.size(); j++) {
+                    epsilon[i][j] = eps.get(j);
+                }
+            }
+            this.start = start;
+            this.accept = accept;
+        }
+
+        @Override
+        public boolean matches(CharSequence text) {
+            int size = edgeKind.length;
+            int length = text.length();
+            StateSet current = new StateSet(size);
+            StateSet next = new StateSet(size);
+            int[] stack = new int[size];
+
+            addClosure(current, start, text, 0, stack);
+            for (int pos = 0; pos < length; ) {
+                if (current.count == 0) {
+                    return false;
+                }
+                int c = Character.codePointAt(text, pos);
+                pos += Character.charCount(c);
+                next.clear();
+                for (int i = 0; i < current.count; i++) {
+                    int state = current.states[i];
+                    if (consumes(state, c)) {
+                        addClosure(next, edgeTarget[state], text, pos, stack);
+                    }
+                }
+                StateSet swap = current;
+                current = next;
+                next = swap;
+            }
+            return current.contains(accept);
+        }
+
+        private boolean consumes(int state, int c) {
+            switch (edgeKind[state]) {
+                case EDGE_CHAR:
+                    return edgeChar[state] == (caseInsensitive ? foldCase(c) : c);
+                case EDGE_CLASS:
+                    return edgeClass[state].matches(c, caseInsensitive);
+                case EDGE_ANY:
+                    // Same as '.' in java.util.regex without DOTALL
+                    return c != '\n' && c != '\r' && c != '\u0085' && c != 0x2028 && c != 0x2029;
+                default:
+                    return false;
+            }
+        }
+
+        private void addClosure(StateSet set, int state, CharSequence text, int pos, int[] stack) {
+            if (!set.add(state)) {
+                return;
+            }
+            int top = 0;
+            stack[top++] = state;
+            while (top > 0) {
+                int current = stack[--top];
+                for (int next : epsilon[current]) {
+                    if (set.add(next)) {
+                        stack[top++] = next;
+                    }
+                }
+                int kind = edgeKind[current];
+                boolean passes = (kind == EDGE_BEGIN && pos == 0) || (kind == EDGE_END && isEnd(text, pos));
+                if (passes && set.add(edgeTarget[current])) {
+                    stack[top++] = edgeTarget[current];
+                }
+            }
+        }
+
+        // Same as $ in java.util.regex without MULTILINE: end of input or before a final line terminator
+        private static boolean isEnd(CharSequence text, int pos) {
+            int length = text.length();
+            if (pos == length) {
+                return true;
+            }
+            if (pos == length - 2) {
+                return text.charAt(pos) == '\r' && text.charAt(pos + 1) == '\n';
+            }
+            if (pos == length - 1) {
+                char c = text.charAt(pos);
+                if (c == '\n') {
+                    return pos == 0 || text.charAt(pos - 1) != '\r';
+                }
+                return c == '\r' || c == '\u0085' || c == (char) 0x2028 || c == (char) 0x2029;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Sparse set of state ids with O(1) add, contains and clear.
+     */
+    private static final class StateSet {
+        private final int[] states;
+        private final int[] index;
+        private int count;
+
+        StateSet(int capacity) {
+            states = new int[capacity];
+            index = new int[capacity];
+        }
+
+        boolean contains(int state) {
+            int i = index[state];
+            return i < count && states[i] == state;
+        }
+
+        boolean add(int state) {
+            if (contains(state)) {
+                return false;
+            }
+            index[state] = count;
+            states[count++] = state;
+            return true;
+        }
+
+        void clear() {
+            count = 0;
+        }
+    }
+
+    private static boolean isAsciiLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static int toggleCase(int c) {
+        return c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c + ('a' - 'A');
+    }
+
+    // Same folding as Pattern.CASE_INSENSITIVE without UNICODE_CASE: ASCII letters only
+    private static int foldCase(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+}
@@ -0,0 +1,333 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+import com.spaceagle17.iris_shader_folder.rule.PatternNode;
+import com.spaceagle17.iris_shader_folder.rule.ShaderPattern;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches a name against many shader patterns at once.
+ * Patterns built only from literals, {version}, {all} and {.*} are merged into a single
+ * automaton that is turned into a DFA lazily, so deciding whether any of them matches takes
+ * one linear pass over the name. Patterns using other regex features fall back to java.util.regex.
+ */
+public final class MultiPatternMatcher {
+    private static final int MAX_CACHED_STATES = 4096;
+
+    // Kinds of consuming transitions an NFA state can have
+    private static final int EDGE_NONE = 0;
+    private static final int EDGE_CHAR = 1;
+    private static final int EDGE_DIGIT = 2;
+    private static final int EDGE_ANY = 3;
+
+    private final int[] edgeKind;
+    private final char[] edgeChar;
+    private final int[] edgeTarget;
+    private final int[][] epsilon;
+    private final int acceptState;
+    private final int automatonPatternCount;
+
+    private final List<CompiledShaderPattern> fallbackPatterns;
+
+    private final Map<BitSet, DfaState> dfaStates = new HashMap<>();
+    private DfaState startState;
+
+    private MultiPatternMatcher(NfaBuilder nfa, int automatonPatternCount, List<CompiledShaderPattern> fallbackPatterns) {
+        int size = nfa.size();
+        this.edgeKind = new int[size];
+        this.edgeChar = new char[size];
+        this.edgeTarget = new int[size];
+        this.epsilon = new int[size][];
+        for (int i = 0; i < size; i++) {
+            edgeKind[i] = nfa.edgeKind.get(i);
+            edgeChar[i] = nfa.edgeChar.get(i);
+            edgeTarget[i] = nfa.edgeTarget.get(i);
+            List<Integer> eps = nfa.epsilon.get(i);
+            epsilon[i] = new int[eps.size()];
+            for (int j = 0; j < eps.size(); j++) {
+                epsilon[i][j] = eps.get(j);
+            }
+        }
+        this.acceptState = nfa.accept;
+        this.automatonPatternCount = automatonPatternCount;
+        this.fallbackPatterns = fallbackPatterns;
+    }
+
+    /**
+     * Builds a matcher for the given patterns. Empty lines and comments are skipped,
+     * invalid regex patterns are skipped (and logged once by ShaderPatternCache).
+     */
+    public static MultiPatternMatcher compile(List<ShaderPattern> patterns) {
+        NfaBuilder nfa = new NfaBuilder();
+        List<CompiledShaderPattern> fallback = new ArrayList<>();
+        int automatonCount = 0;
+
+        for (ShaderPattern pattern : patterns) {
+            String source = pattern.getSource();
+            if (source.trim().isEmpty() || source.startsWith("#")) continue;
+
+            if (pattern.isSimple()) {
+                nfa.addPattern(pattern);
+                automatonCount++;
+            } else {
+                CompiledShaderPattern compiled = pattern.compile();
+                if (compiled != null) {
+                    fallback.add(compiled);
+                }
+            }
+        }
+
+        return new MultiPatternMatcher(nfa, automatonCount, fallback);
+    }
+
+    /**
+     * Checks whether a pattern only uses features the automaton supports:
+     * literal text, {version}, {all} and {.*}.
+     */
+    public static boolean isAutomatonCompatible(String pattern) {
+        return ShaderPattern.parse(pattern).isSimple();
+    }
+
+    public int getAutomatonPatternCount() {
+        return automatonPatternCount;
+    }
+
+    public int getFallbackPatternCount() {
+        return fallbackPatterns.size();
+    }
+
+    public boolean isEmpty() {
+        return automatonPatternCount == 0 && fallbackPatterns.isEmpty();
+    }
+
+    /**
+     * Returns true if any of the patterns fully matches the given name (case-insensitive, optional .zip).
+     */
+    public boolean matchesAny(String text) {
+        if (automatonPatternCount > 0 && matchesAutomaton(text)) {
+            return true;
+        }
+
+        for (CompiledShaderPattern pattern : fallbackPatterns) {
+            if (pattern.matches(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized boolean matchesAutomaton(String text) {
+        if (startState == null) {
+            BitSet start = new BitSet();
+            addClosure(start, 0);
+            startState = intern(start);
+        }
+
+        DfaState state = startState;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, text.charAt(i));
+            if (state.dead) {
+                return false;
+            }
+        }
+        return state.accepting;
+    }
+
+    private DfaState step(DfaState state, char c) {
+        char folded = foldCase(c);
+        DfaState next = folded < 128 ? state.asciiNext[folded] : state.otherNext.get(folded);
+        if (next != null) {
+            return next;
+        }
+
+        BitSet target = new BitSet();
+        BitSet current = state.nfaStates;
+        for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+            if (consumes(s, folded)) {
+                addClosure(target, edgeTarget[s]);
+            }
+        }
+
+        if (dfaStates.size() >= MAX_CACHED_STATES) {
+            // Keep memory bounded for huge pattern sets, states are rebuilt on demand
+            dfaStates.clear();
+            state.clearTransitions();
+            startState = null;
+        }
+
+        next = intern(target);
+        if (folded < 128) {
+            state.asciiNext[folded] = next;
+        } else {
+            state.otherNext.put(folded, next);
+        }
+        return next;
+    }
+
+    private boolean consumes(int state, char folded) {
+        switch (edgeKind[state]) {
+            case EDGE_CHAR:
+                return edgeChar[state] == folded;
+            case EDGE_DIGIT:
+                return folded >= '0' && folded <= '9';
+            case EDGE_ANY:
+                // Same as '.' in java.util.regex without DOTALL
+                return folded != '\n' && folded != '\r' && folded != '\u0085'
+                    && folded != (char) 0x2028 && folded != (char) 0x2029;
+            default:
+                return false;
+        }
+    }
+
+    private void addClosure(BitSet set, int state) {
+        if (set.get(state)) {
+            return;
+        }
+        set.set(state);
+        for (int next : epsilon[state]) {
+            addClosure(set, next);
+        }
+    }
+
+    private DfaState intern(BitSet nfaStates) {
+        DfaState state = dfaStates.get(nfaStates);
+        if (state == null) {
+            state = new DfaState(nfaStates, nfaStates.get(acceptState));
+            dfaStates.put(nfaStates, state);
+        }
+        return state;
+    }
+
+    // Same folding as Pattern.CASE_INSENSITIVE without UNICODE_CASE: ASCII letters only
+    private static char foldCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static final class DfaState {
+        private final BitSet nfaStates;
+        private final boolean accepting;
+        private final boolean dead;
+        private DfaState[] asciiNext = new DfaState[128];
+        private Map<Character, DfaState> otherNext = new HashMap<>();
+
+        DfaState(BitSet nfaStates, boolean accepting) {
+            this.nfaStates = nfaStates;
+            this.accepting = accepting;
+            this.dead = nfaStates.isEmpty();
+        }
+
+        void clearTransitions() {
+            asciiNext = new DfaState[128];
+            otherNext = new HashMap<>();
+        }
+    }
+
+    /**
+     * Builds one Thompson-style NFA for all automaton-compatible patterns.
+     * State 0 is the shared start state; every pattern ends in a shared tail that
+     * accepts either directly or after an optional ".zip" extension.
+     */
+    private static final class NfaBuilder {
+        private final List<Integer> edgeKind = new ArrayList<>();
+        private final List<Character> edgeChar = new ArrayList<>();
+        private final List<Integer> edgeTarget = new ArrayList<>();
+        private final List<List<Integer>> epsilon = new ArrayList<>();
+        private final int start;
+        private final int tail;
+        private final int accept;
+
+        NfaBuilder() {
+            start = newState();
+            tail = newState();
+            accept = newState();
+
+            addEpsilon(tail, accept);
+            int zip = tail;
+            for (char c : ".zip".toCharArray()) {
+                int next = c == 'p' ? accept : newState();
+                setEdge(zip, EDGE_CHAR, c, next);
+                zip = next;
+            }
+        }
+
+        int size() {
+            return edgeKind.size();
+        }
+
+        void addPattern(ShaderPattern pattern) {
+            int current = newState();
+            addEpsilon(start, current);
+
+            for (PatternNode node : pattern.getNodes()) {
+                if (node instanceof PatternNode.Literal) {
+                    current = addLiteral(current, ((PatternNode.Literal) node).getText());
+                } else if (node instanceof PatternNode.Version) {
+                    current = addVersion(current);
+                } else {
+                    current = addAnything(current);
+                }
+            }
+
+            addEpsilon(current, tail);
+        }
+
+        private int addLiteral(int current, String literal) {
+            for (int i = 0; i < literal.length(); i++) {
+                int next = newState();
+                setEdge(current, EDGE_CHAR, foldCase(literal.charAt(i)), next);
+                current = next;
+            }
+            return current;
+        }
+
+        // \d+(\.\d+)*
+        private int addVersion(int current) {
+            int digits = newState();
+            int digitLoop = newState();
+            int dot = newState();
+            int afterDot = newState();
+            int exit = newState();
+
+            setEdge(current, EDGE_DIGIT, '0', digits);
+            addEpsilon(digits, digitLoop);
+            addEpsilon(digits, dot);
+            addEpsilon(digits, exit);
+            setEdge(digitLoop, EDGE_DIGIT, '0', digits);
+            setEdge(dot, EDGE_CHAR, '.', afterDot);
+            setEdge(afterDot, EDGE_DIGIT, '0', digits);
+            return exit;
+        }
+
+        // .*
+        private int addAnything(int current) {
+            int loop = newState();
+            int exit = newState();
+            addEpsilon(current, loop);
+            setEdge(loop, EDGE_ANY, '\0', loop);
+            addEpsilon(loop, exit);
+            return exit;
+        }
+
+        private int newState() {
+            edgeKind.add(EDGE_NONE);
+            edgeChar.add('\0');
+            edgeTarget.add(-1);
+            epsilon.add(new ArrayList<Integer>(2));
+            return edgeKind.size() - 1;
+        }
+
+        private void setEdge(int state, int kind, char c, int target) {
+            edgeKind.set(state, kind);
+            edgeChar.set(state, c);
+            edgeTarget.set(state, target);
+        }
+
+        private void addEpsilon(int from, int to) {
+            epsilon.get(from).add(to);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the shaderDescription of a shader pack without opening the whole pack.
+ * For zips only the end of central directory record and the central directory are read,
+ * then the single pack.json entry is inflated. The JSON is streamed and reading stops
+ * as soon as the description is found.
+ */
+public final class PackMetadataReader {
+    private static final String PACK_JSON = "shaders/pack.json";
+    private static final String DESCRIPTION_FIELD = "shaderDescription";
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CEN_SIGNATURE = 0x02014b50;
+    private static final int CEN_HEADER_SIZE = 46;
+    private static final int LOC_SIGNATURE = 0x04034b50;
+    private static final int LOC_HEADER_SIZE = 30;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    // pack.json files are a few KB, anything bigger is not worth reading for a tooltip
+    private static final long MAX_PACK_JSON_SIZE = 4 * 1024 * 1024;
+
+    private static final byte[] PACK_JSON_BYTES = PACK_JSON.getBytes(StandardCharsets.UTF_8);
+
+    private PackMetadataReader() {
+    }
+
+    /**
+     * Reads the shaders/pack.json of a folder pack
+     */
+    public static PackMetadata readFromFile(Path packJson) throws IOException {
+        try (Reader reader = Files.newBufferedReader(packJson, StandardCharsets.UTF_8)) {
+            return new PackMetadata(readDescription(reader), "");
+        }
+    }
+
+    /**
+     * Reads the pack.json of a zip pack, either at shaders/pack.json or
+     * inside a single top level folder
+     */
+    public static PackMetadata readFromZip(Path zip) throws IOException {
+        try (FileChannel channel = FileChannel.open(zip, StandardOpenOption.READ)) {
+            CentralDirectory directory = findCentralDirectory(channel);
+            PackJsonEntry packJson = findPackJson(channel, directory);
+            if (packJson == null) {
+                return PackMetadata.NONE;
+            }
+            try (InputStream entry = openEntry(channel, packJson.localHeader);
+                 Reader reader = new InputStreamReader(entry, StandardCharsets.UTF_8)) {
+                return new PackMetadata(readDescription(reader), packJson.rootFolder);
+            }
+        }
+    }
+
+    /**
+     * Streams a pack.json and returns its shaderDescription, or null if there is none.
+     * Stops reading once the field is found.
+     */
+    public static String readDescription(Reader json) throws IOException {
+        JsonReader reader = new JsonReader(json);
+        // Same leniency as Gson.fromJson, which the tree based parsing used before
+        reader.setLenient(true);
+        try {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return null;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!DESCRIPTION_FIELD.equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+                JsonToken token = reader.peek();
+                if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                    return reader.nextString();
+                }
+                if (token == JsonToken.BOOLEAN) {
+                    return String.valueOf(reader.nextBoolean());
+                }
+                return null;
+            }
+            return null;
+        } catch (IllegalStateException | MalformedJsonException | EOFException e) {
+            // Malformed JSON, the same as a pack without a description
+            return null;
+        }
+    }
+
+    private static CentralDirectory findCentralDirectory(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        int tailSize = (int) Math.min(fileSize, EOCD_SIZE + MAX_COMMENT_SIZE + ZIP64_LOCATOR_SIZE);
+        ByteBuffer tail = read(channel, fileSize - tailSize, tailSize);
+
+        // The record is at the end unless the archive has a comment, search backwards. Signed,
+        // appended or padded zips have bytes after the record, like ZipFile those are accepted
+        // when the record points at a central directory.
+        CentralDirectory trailing = null;
+        for (int i = tailSize - EOCD_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) != EOCD_SIGNATURE) {
+                continue;
+            }
+            if (i + EOCD_SIZE + (tail.getShort(i + 20) & 0xFFFF) == tailSize) {
+                return readEndRecord(channel, tail, i, fileSize);
+            }
+            if (trailing == null) {
+                trailing = readTrailingEndRecord(channel, tail, i, fileSize);
+            }
+        }
+        if (trailing != null) {
+            return trailing;
+        }
+        throw new ZipException("Not a zip file");
+    }
+
+    // The central directory of an end record followed by other bytes, or null if it does not point at one
+    private static CentralDirectory readTrailingEndRecord(FileChannel channel, ByteBuffer tail, int i, long fileSize) {
+        try {
+            CentralDirectory directory = readEndRecord(channel, tail, i, fileSize);
+            if (directory.size >= 4 && read(channel, directory.offset, 4).getInt(0) == CEN_SIGNATURE) {
+                return directory;
+            }
+        } catch (IOException ignored) {
+            // Bytes that only look like an end record
+        }
+        return null;
+    }
+
+    private static CentralDirectory readEndRecord(FileChannel channel, ByteBuffer tail, int i, long fileSize) throws IOException {
+        long entries = tail.getShort(i + 10) & 0xFFFF;
+        long size = tail.getInt(i + 12) & ZIP64_MAGIC;
+        long offset = tail.getInt(i + 16) & ZIP64_MAGIC;
+        if ((entries == 0xFFFF || size == ZIP64_MAGIC || offset == ZIP64_MAGIC)
+                && i >= ZIP64_LOCATOR_SIZE && tail.getInt(i - ZIP64_LOCATOR_SIZE) == ZIP64_LOCATOR_SIGNATURE) {
+            ByteBuffer record = read(channel, tail.getLong(i - ZIP64_LOCATOR_SIZE + 8), 56);
+            if (record.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+                throw new ZipException("Invalid zip64 end of central directory");
+            }
+            size = record.getLong(40);
+            offset = record.getLong(48);
+        }
+        if (offset < 0 || size < 0 || offset + size > fileSize || size > Integer.MAX_VALUE) {
+            throw new ZipException("Invalid central directory");
+        }
+        return new CentralDirectory(offset, (int) size);
+    }
+
+    // Returns the pack.json entry, or null if there is none
+    private static PackJsonEntry findPackJson(FileChannel channel, CentralDirectory directory) throws IOException {
+        ByteBuffer cen = read(channel, directory.offset, directory.size);
+        PackJsonEntry nested = null;
+        int position = 0;
+        while (position + CEN_HEADER_SIZE <= directory.size && cen.getInt(position) == CEN_SIGNATURE) {
+            int nameLength = cen.getShort(position + 28) & 0xFFFF;
+            int extraLength = cen.getShort(position + 30) & 0xFFFF;
+            int commentLength = cen.getShort(position + 32) & 0xFFFF;
+            int nameStart = position + CEN_HEADER_SIZE;
+
+            int match = matchPackJson(cen, nameStart, nameLength);
+            if (match != 0) {
+                long localHeader = cen.getInt(position + 42) & ZIP64_MAGIC;
+                if (localHeader == ZIP64_MAGIC) {
+                    localHeader = zip64LocalHeaderOffset(cen, position, nameStart + nameLength, extraLength);
+                }
+                if (match > 0) {
+                    return new PackJsonEntry(localHeader, "");
+                }
+                if (nested == null) {
+                    int folderLength = nameLength - PACK_JSON_BYTES.length - 1;
+                    String folder = new String(cen.array(), nameStart, folderLength, StandardCharsets.UTF_8);
+                    nested = new PackJsonEntry(localHeader, folder);
+                }
+            }
+            position = nameStart + nameLength + extraLength + commentLength;
+        }
+        return nested;
+    }
+
+    // 1 for shaders/pack.json, -1 for <folder>/shaders/pack.json, 0 otherwise
+    private static int matchPackJson(ByteBuffer cen, int nameStart, int nameLength) {
+        int prefixLength = nameLength - PACK_JSON_BYTES.length;
+        if (prefixLength < 0) {
+            return 0;
+        }
+        for (int i = 0; i < PACK_JSON_BYTES.length; i++) {
+            if (cen.get(nameStart + prefixLength + i) != PACK_JSON_BYTES[i]) {
+                return 0;
+            }
+        }
+        if (prefixLength == 0) {
+            return 1;
+        }
+        // Exactly one top level folder: "folder/" in front
+        if (prefixLength < 2 || cen.get(nameStart + prefixLength - 1) != '/') {
+            return 0;
+        }
+        for (int i = nameStart; i < nameStart + prefixLength - 1; i++) {
+            if (cen.get(i) == '/') {
+                return 0;
+            }
+        }
+        return -1;
+    }
+
+    // The zip64 extra field lists the 64 bit values in a fixed order, only those that overflowed
+    private static long zip64LocalHeaderOffset(ByteBuffer cen, int header, int extraStart, int extraLength) throws ZipException {
+        int position = extraStart;
+        int end = extraStart + extraLength;
+        while (position + 4 <= end) {
+            int id = cen.getShort(position) & 0xFFFF;
+            int size = cen.getShort(position + 2) & 0xFFFF;
+            if (id == ZIP64_EXTRA_ID) {
+                int value = position + 4;
+                if ((cen.getInt(header + 24) & ZIP64_MAGIC) == ZIP64_MAGIC) value += 8;
+                if ((cen.getInt(header + 20) & ZIP64_MAGIC) == ZIP64_MAGIC) value += 8;
+                if (value + 8 > position + 4 + size) break;
+                return cen.getLong(value);
+            }
+            position += 4 + size;
+        }
+        throw new ZipException("Missing zip64 offset");
+    }
+
+    private static InputStream openEntry(FileChannel channel, long localHeader) throws IOException {
+        ByteBuffer header = read(channel, localHeader, LOC_HEADER_SIZE);
+        if (header.getInt(0) != LOC_SIGNATURE) {
+            throw new ZipException("Invalid local header");
+        }
+        int flags = header.getShort(6) & 0xFFFF;
+        int method = header.getShort(8) & 0xFFFF;
+        long compressedSize = header.getInt(18) & ZIP64_MAGIC;
+        int nameLength = header.getShort(26) & 0xFFFF;
+        int extraLength = header.getShort(28) & 0xFFFF;
+        long dataStart = localHeader + LOC_HEADER_SIZE + nameLength + extraLength;
+
+        if ((flags & 1) != 0) {
+            throw new ZipException("Encrypted entry");
+        }
+        // With a data descriptor or zip64 the local size is not usable, deflate knows where it ends
+        boolean sizeKnown = (flags & 8) == 0 && compressedSize != ZIP64_MAGIC;
+        long readSize = Math.min(sizeKnown ? compressedSize : Long.MAX_VALUE,
+            Math.min(channel.size() - dataStart, MAX_PACK_JSON_SIZE));
+        if (method == METHOD_STORED && !sizeKnown) {
+            throw new ZipException("Stored entry without size");
+        }
+
+        ByteBuffer data = read(channel, dataStart, (int) readSize);
+        if (method == METHOD_STORED) {
+            return new ByteArrayInputStream(data.array(), 0, data.limit());
+        }
+        if (method == METHOD_DEFLATED) {
+            // Raw deflate may ask for one byte past the data before it reports the end
+            byte[] deflated = Arrays.copyOf(data.array(), data.limit() + 1);
+            return new InflaterInputStream(new ByteArrayInputStream(deflated), new Inflater(true)) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    inf.end();
+                }
+            };
+        }
+        throw new ZipException("Unsupported compression method " + method);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of zip file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * What was found in a pack's pack.json
+     */
+    public static final class PackMetadata {
+        public static final PackMetadata NONE = new PackMetadata(null, null);
+
+        private final String description;
+        private final String rootFolder;
+
+        public PackMetadata(String description, String rootFolder) {
+            this.description = description;
+            this.rootFolder = rootFolder;
+        }
+
+        /**
+         * The shaderDescription, or null if there is none
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * The folder holding shaders/ inside the pack, "" for the pack root, or null without a pack.json
+         */
+        public String getRootFolder() {
+            return rootFolder;
+        }
+    }
+
+    private static final class PackJsonEntry {
+        private final long localHeader;
+        private final String rootFolder;
+
+        PackJsonEntry(long localHeader, String rootFolder) {
+            this.localHeader = localHeader;
+            this.rootFolder = rootFolder;
+        }
+    }
+
+    private static final class CentralDirectory {
+        private final long offset;
+        private final int size;
+
+        CentralDirectory(long offset, int size) {
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+}
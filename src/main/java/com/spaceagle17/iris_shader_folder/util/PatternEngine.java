@@ -0,0 +1,27 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+/**
+ * A regex backend that ShaderPatternUtil can compile user patterns with.
+ */
+public interface PatternEngine {
+    String getName();
+
+    /**
+     * True if matching time is bounded by text length times program size. Engines that may
+     * backtrack are run against a step budget instead.
+     */
+    boolean isLinearTime();
+
+    /**
+     * Compiles an already validated java.util.regex expression.
+     * @return a matcher for the expression, or null if this engine does not support it
+     */
+    RegexMatcher compile(String regex, boolean caseInsensitive);
+
+    /**
+     * A compiled expression that answers full-match queries.
+     */
+    interface RegexMatcher {
+        boolean matches(CharSequence text);
+    }
+}
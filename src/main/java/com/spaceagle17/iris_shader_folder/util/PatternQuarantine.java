@@ -0,0 +1,49 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+import com.spaceagle17.iris_shader_folder.IrisShaderFolder;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of patterns that blew their step budget. A quarantined pattern never matches
+ * again for the rest of the session, so one pathological rule cannot stall the shader list.
+ */
+public final class PatternQuarantine {
+    // Character reads allowed per evaluation, normal patterns need a few hundred on a pack name
+    public static final long STEP_BUDGET = 200_000;
+
+    // The same text compiles to different regexes as a shader pattern (anchored, case-insensitive
+    // full match) and as a recolor part (case-sensitive find), so each kind is quarantined on its own
+    public static final String SHADER_PATTERN = "Shader pattern";
+    public static final String PART_PATTERN = "Recolor part pattern";
+
+    // Keys are the kind and the pattern text
+    private static final Set<String> quarantined = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private PatternQuarantine() {
+    }
+
+    public static boolean isQuarantined(String kind, String pattern) {
+        return !quarantined.isEmpty() && quarantined.contains(key(kind, pattern));
+    }
+
+    /**
+     * Quarantines a pattern, reporting it (with the cost of the aborted evaluation) only the first time.
+     */
+    public static void quarantine(String kind, String pattern, long steps, CharSequence text) {
+        if (quarantined.add(key(kind, pattern))) {
+            IrisShaderFolder.LOGGER.warn(kind + " '" + pattern + "' exceeded the step budget (" + steps
+                + " steps while matching '" + text + "') and is disabled for the rest of the session");
+        }
+    }
+
+    private static String key(String kind, String pattern) {
+        return kind + ':' + pattern;
+    }
+
+    public static Set<String> getQuarantined() {
+        return Collections.unmodifiableSet(quarantined);
+    }
+}
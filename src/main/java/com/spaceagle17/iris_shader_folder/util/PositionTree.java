@@ -0,0 +1,189 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+import java.util.Random;
+
+/**
+ * A sequence of the ids 0..n-1 stored in an implicit treap, so an id can be removed and a
+ * block of ids inserted at any position in O(log n) expected time.
+ * Used by the reorder system to move packs around without shifting array lists.
+ */
+public final class PositionTree {
+    private static final int NONE = -1;
+
+    private final int[] left;
+    private final int[] right;
+    private final int[] parent;
+    private final int[] size;
+    private final int[] priority;
+    private int root = NONE;
+
+    // Results of split(), kept in fields to avoid allocating pairs
+    private int splitLeft;
+    private int splitRight;
+
+    /**
+     * Creates a tree holding the ids 0..count-1 in ascending order.
+     */
+    public PositionTree(int count) {
+        left = new int[count];
+        right = new int[count];
+        parent = new int[count];
+        size = new int[count];
+        priority = new int[count];
+
+        Random random = new Random(count);
+        for (int id = 0; id < count; id++) {
+            priority[id] = random.nextInt();
+            reset(id);
+            root = merge(root, id);
+        }
+        detach(root);
+    }
+
+    public int size() {
+        return sizeOf(root);
+    }
+
+    /**
+     * Returns the id at the given position.
+     */
+    public int get(int position) {
+        int node = root;
+        while (node != NONE) {
+            int leftSize = sizeOf(left[node]);
+            if (position < leftSize) {
+                node = left[node];
+            } else if (position == leftSize) {
+                return node;
+            } else {
+                position -= leftSize + 1;
+                node = right[node];
+            }
+        }
+        throw new IndexOutOfBoundsException("Position: " + position);
+    }
+
+    /**
+     * Returns the current position of an id that is in the tree.
+     */
+    public int positionOf(int id) {
+        int position = sizeOf(left[id]);
+        for (int node = id; parent[node] != NONE; node = parent[node]) {
+            int up = parent[node];
+            if (right[up] == node) {
+                position += sizeOf(left[up]) + 1;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Removes an id that is in the tree.
+     */
+    public void remove(int id) {
+        int position = positionOf(id);
+        split(root, position);
+        int before = splitLeft;
+        split(splitRight, 1);
+        int after = splitRight;
+        reset(id);
+        root = merge(before, after);
+        detach(root);
+    }
+
+    /**
+     * Inserts the first count ids of the array, none of which may be in the tree,
+     * as a block starting at the given position.
+     */
+    public void insertAll(int position, int[] ids, int count) {
+        int block = NONE;
+        for (int i = 0; i < count; i++) {
+            reset(ids[i]);
+            block = merge(block, ids[i]);
+        }
+
+        split(root, position);
+        int after = splitRight;
+        root = merge(merge(splitLeft, block), after);
+        detach(root);
+    }
+
+    /**
+     * Returns all ids in sequence order.
+     */
+    public int[] toArray() {
+        int[] result = new int[size()];
+        int[] stack = new int[result.length];
+        int depth = 0;
+        int count = 0;
+        int node = root;
+        while (node != NONE || depth > 0) {
+            while (node != NONE) {
+                stack[depth++] = node;
+                node = left[node];
+            }
+            node = stack[--depth];
+            result[count++] = node;
+            node = right[node];
+        }
+        return result;
+    }
+
+    // Splits the subtree at t into its first k nodes (splitLeft) and the rest (splitRight)
+    private void split(int t, int k) {
+        if (t == NONE) {
+            splitLeft = NONE;
+            splitRight = NONE;
+            return;
+        }
+        if (sizeOf(left[t]) >= k) {
+            split(left[t], k);
+            left[t] = splitRight;
+            update(t);
+            splitRight = t;
+        } else {
+            split(right[t], k - sizeOf(left[t]) - 1);
+            right[t] = splitLeft;
+            update(t);
+            splitLeft = t;
+        }
+        detach(splitLeft);
+        detach(splitRight);
+    }
+
+    private int merge(int a, int b) {
+        if (a == NONE) return b;
+        if (b == NONE) return a;
+        if (priority[a] > priority[b]) {
+            right[a] = merge(right[a], b);
+            update(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        update(b);
+        return b;
+    }
+
+    private void update(int node) {
+        size[node] = 1 + sizeOf(left[node]) + sizeOf(right[node]);
+        if (left[node] != NONE) parent[left[node]] = node;
+        if (right[node] != NONE) parent[right[node]] = node;
+    }
+
+    private void reset(int node) {
+        left[node] = NONE;
+        right[node] = NONE;
+        parent[node] = NONE;
+        size[node] = 1;
+    }
+
+    private void detach(int node) {
+        if (node != NONE) {
+            parent[node] = NONE;
+        }
+    }
+
+    private int sizeOf(int node) {
+        return node == NONE ? 0 : size[node];
+    }
+}
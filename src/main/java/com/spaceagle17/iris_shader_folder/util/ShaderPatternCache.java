@@ -0,0 +1,51 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+/**
+ * Shared, bounded cache of compiled shader patterns keyed by the raw user pattern.
+ * Identical patterns used in different config sections resolve to the same compiled instance.
+ */
+public final class ShaderPatternCache {
+    private static final int MAX_ENTRIES = 1024;
+
+    // Marks patterns that failed to compile so they are not recompiled (and re-logged) on every call
+    private static final CompiledShaderPattern INVALID = new CompiledShaderPattern("", "", null, null, null);
+
+    private static final BoundedCache<String, CompiledShaderPattern> CACHE =
+        BoundedCache.ofSize("Pattern cache", MAX_ENTRIES);
+
+    private ShaderPatternCache() {
+    }
+
+    /**
+     * Returns the compiled form of the given pattern, compiling it on first use.
+     * @return the compiled pattern, or null if the pattern is not a valid regex
+     */
+    public static CompiledShaderPattern get(String patternStr) {
+        // Another thread may compile the same pattern meanwhile, the first instance is kept
+        CompiledShaderPattern compiled = CACHE.get(patternStr, pattern -> {
+            CompiledShaderPattern result = ShaderPatternUtil.compile(pattern);
+            return result != null ? result : INVALID;
+        });
+        return compiled == INVALID ? null : compiled;
+    }
+
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    public static int size() {
+        return CACHE.size();
+    }
+
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    public static String describeStats() {
+        return CACHE.describeStats();
+    }
+}
@@ -0,0 +1,267 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+import com.spaceagle17.iris_shader_folder.rule.PatternNode;
+import com.spaceagle17.iris_shader_folder.rule.ShaderPattern;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index over an ordered list of shader patterns, answering which rules match a name.
+ * Rules are classified from their parsed nodes once when the index is built:
+ *  - exact literals go into a case-folded hash map
+ *  - literal{.*}, literal{all} and literal{version} go into a prefix trie
+ *  - {.*}literal and {all}literal go into a suffix trie
+ *  - everything else is matched with its compiled regex
+ * Rule ids are the positions of the patterns in the list given to build().
+ */
+public final class ShaderPatternIndex {
+    private static final String ZIP_EXTENSION = ".zip";
+
+    private final int ruleCount;
+    private final Map<String, List<Integer>> exactRules = new HashMap<>();
+    private final TrieNode prefixRoot = new TrieNode();
+    private final TrieNode suffixRoot = new TrieNode();
+    private final List<Integer> regexRuleIds = new ArrayList<>();
+    private final List<CompiledShaderPattern> regexRules = new ArrayList<>();
+    private int prefixCount = 0;
+    private int suffixCount = 0;
+
+    private ShaderPatternIndex(int ruleCount) {
+        this.ruleCount = ruleCount;
+    }
+
+    public static ShaderPatternIndex build(List<ShaderPattern> patterns) {
+        ShaderPatternIndex index = new ShaderPatternIndex(patterns.size());
+        for (int i = 0; i < patterns.size(); i++) {
+            index.addRule(i, patterns.get(i));
+        }
+        return index;
+    }
+
+    private void addRule(int ruleId, ShaderPattern pattern) {
+        String source = pattern.getSource().trim();
+        if (source.isEmpty() || source.startsWith("#")) {
+            return;
+        }
+
+        List<PatternNode> nodes = pattern.getNodes();
+        if (pattern.isLiteral()) {
+            String key = foldCase(source);
+            List<Integer> ids = exactRules.get(key);
+            if (ids == null) {
+                ids = new ArrayList<>(1);
+                exactRules.put(key, ids);
+            }
+            ids.add(ruleId);
+            return;
+        }
+
+        if (nodes.size() == 2) {
+            PatternNode first = nodes.get(0);
+            PatternNode second = nodes.get(1);
+
+            // literal followed by a single trailing placeholder
+            if (first instanceof PatternNode.Literal && (second.isAnything() || second instanceof PatternNode.Version)) {
+                TrieNode node = prefixRoot.descend(foldCase(((PatternNode.Literal) first).getText()), false);
+                node.addRule(ruleId, second instanceof PatternNode.Version);
+                prefixCount++;
+                return;
+            }
+
+            // a single leading placeholder followed by a literal
+            if (first.isAnything() && second instanceof PatternNode.Literal) {
+                TrieNode node = suffixRoot.descend(foldCase(((PatternNode.Literal) second).getText()), true);
+                node.addRule(ruleId, false);
+                suffixCount++;
+                return;
+            }
+        }
+
+        CompiledShaderPattern compiled = pattern.compile();
+        if (compiled != null) {
+            regexRuleIds.add(ruleId);
+            regexRules.add(compiled);
+        }
+    }
+
+    /**
+     * Returns the id of the first rule matching the name, or -1 if none matches.
+     */
+    public int firstMatch(String name) {
+        BitSet matches = matchAll(name);
+        return matches.nextSetBit(0);
+    }
+
+    /**
+     * Returns the id of the last rule matching the name, or -1 if none matches.
+     */
+    public int lastMatch(String name) {
+        BitSet matches = matchAll(name);
+        return matches.length() - 1;
+    }
+
+    public boolean matchesAny(String name) {
+        return !matchAll(name).isEmpty();
+    }
+
+    /**
+     * Returns the ids of all rules matching the name.
+     */
+    public BitSet matchAll(String name) {
+        BitSet matches = new BitSet(ruleCount);
+        String folded = foldCase(name);
+        boolean hasZip = folded.endsWith(ZIP_EXTENSION);
+        int baseLength = hasZip ? folded.length() - ZIP_EXTENSION.length() : folded.length();
+
+        // Exact tier
+        addAll(matches, exactRules.get(folded));
+        if (hasZip) {
+            addAll(matches, exactRules.get(folded.substring(0, baseLength)));
+        }
+
+        // Prefix tier
+        TrieNode node = prefixRoot;
+        for (int i = 0; i < folded.length() && node != null; i++) {
+            node = node.children.get(folded.charAt(i));
+            if (node != null) {
+                for (int ruleId : node.anythingRules) {
+                    matches.set(ruleId);
+                }
+                if (!node.versionRules.isEmpty() && isVersion(folded, i + 1, hasZip ? baseLength : folded.length())) {
+                    for (int ruleId : node.versionRules) {
+                        matches.set(ruleId);
+                    }
+                }
+            }
+        }
+
+        // Suffix tier, once against the full name and once without the .zip extension
+        matchSuffixes(matches, folded, folded.length());
+        if (hasZip) {
+            matchSuffixes(matches, folded, baseLength);
+        }
+
+        // Regex tier
+        for (int i = 0; i < regexRules.size(); i++) {
+            int ruleId = regexRuleIds.get(i);
+            if (!matches.get(ruleId) && regexRules.get(i).matches(name)) {
+                matches.set(ruleId);
+            }
+        }
+
+        return matches;
+    }
+
+    private void matchSuffixes(BitSet matches, String folded, int end) {
+        TrieNode node = suffixRoot;
+        for (int i = end - 1; i >= 0 && node != null; i--) {
+            node = node.children.get(folded.charAt(i));
+            if (node != null) {
+                for (int ruleId : node.anythingRules) {
+                    matches.set(ruleId);
+                }
+            }
+        }
+    }
+
+    public int getExactCount() {
+        int count = 0;
+        for (List<Integer> ids : exactRules.values()) {
+            count += ids.size();
+        }
+        return count;
+    }
+
+    public int getPrefixCount() {
+        return prefixCount;
+    }
+
+    public int getSuffixCount() {
+        return suffixCount;
+    }
+
+    public int getRegexCount() {
+        return regexRules.size();
+    }
+
+    public String describeTiers() {
+        return "exact: " + getExactCount() + ", prefix: " + prefixCount
+            + ", suffix: " + suffixCount + ", regex: " + regexRules.size();
+    }
+
+    private static void addAll(BitSet matches, List<Integer> ids) {
+        if (ids != null) {
+            for (int ruleId : ids) {
+                matches.set(ruleId);
+            }
+        }
+    }
+
+    // Matches \d+(\.\d+)* over text[start, end)
+    private static boolean isVersion(String text, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        boolean expectDigit = true;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                expectDigit = false;
+            } else if (c == '.' && !expectDigit) {
+                expectDigit = true;
+            } else {
+                return false;
+            }
+        }
+        return !expectDigit;
+    }
+
+    // Same folding as Pattern.CASE_INSENSITIVE without UNICODE_CASE: ASCII letters only
+    private static String foldCase(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                char[] chars = text.toCharArray();
+                for (int j = i; j < chars.length; j++) {
+                    if (chars[j] >= 'A' && chars[j] <= 'Z') {
+                        chars[j] = (char) (chars[j] + ('a' - 'A'));
+                    }
+                }
+                return new String(chars);
+            }
+        }
+        return text;
+    }
+
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private final List<Integer> anythingRules = new ArrayList<>(0);
+        private final List<Integer> versionRules = new ArrayList<>(0);
+
+        TrieNode descend(String key, boolean reverse) {
+            TrieNode node = this;
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(reverse ? key.length() - 1 - i : i);
+                TrieNode child = node.children.get(c);
+                if (child == null) {
+                    child = new TrieNode();
+                    node.children.put(c, child);
+                }
+                node = child;
+            }
+            return node;
+        }
+
+        void addRule(int ruleId, boolean version) {
+            if (version) {
+                versionRules.add(ruleId);
+            } else {
+                anythingRules.add(ruleId);
+            }
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.spaceagle17.iris_shader_folder.util;
 
 import com.spaceagle17.iris_shader_folder.IrisShaderFolder;
-import java.util.regex.Matcher;
+import com.spaceagle17.iris_shader_folder.rule.ShaderPattern;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -9,57 +9,18 @@ import java.util.regex.PatternSyntaxException;
  * Utility class for shader pattern operations used across multiple systems
  */
 public class ShaderPatternUtil {
+    // Engines in order of preference, the first one that supports a pattern is used
+    private static final PatternEngine[] ENGINES = {
+        LinearPatternEngine.INSTANCE,
+        JdkPatternEngine.INSTANCE
+    };
     
     /**
      * Converts a user-friendly pattern string with special placeholders to a proper regex.
      * Handles {version} and {all} as special cases.
      */
     public static String convertToRegex(String pattern) {
-        StringBuilder result = new StringBuilder();
-        int currentPos = 0;
-        
-        while (currentPos < pattern.length()) {
-            // Find next opening brace
-            int openBrace = pattern.indexOf('{', currentPos);
-            
-            if (openBrace == -1) {
-                // No more braces, add the rest as literal
-                result.append(Pattern.quote(pattern.substring(currentPos)));
-                break;
-            }
-            
-            // Add the part before the brace as literal
-            if (openBrace > currentPos) {
-                result.append(Pattern.quote(pattern.substring(currentPos, openBrace)));
-            }
-            
-            // Find the matching closing brace
-            int closeBrace = findMatchingCloseBrace(pattern, openBrace);
-            
-            if (closeBrace == -1) {
-                // No matching closing brace, treat the rest as literal
-                result.append(Pattern.quote(pattern.substring(currentPos)));
-                break;
-            }
-            
-            // Extract the content inside braces
-            String braceContent = pattern.substring(openBrace + 1, closeBrace);
-            
-            // Handle special case for {version}
-            if ("version".equals(braceContent)) {
-                result.append("\\d+(\\.\\d+)*");
-            } else if ("all".equals(braceContent)) {
-                result.append(".*");  // Match everything
-            } else {
-                // Regular expression - use as is
-                result.append(braceContent);
-            }
-            
-            // Move past the closing brace
-            currentPos = closeBrace + 1;
-        }
-        
-        return result.toString();
+        return ShaderPattern.parse(pattern).toRegex();
     }
     
     /**
@@ -86,34 +47,64 @@ public class ShaderPatternUtil {
     }
     
     /**
-     * Checks if a string matches a pattern, considering .zip extension.
+     * Converts a user pattern to its final anchored regex, with the optional .zip extension.
      */
-    public static boolean matchesPattern(String text, String patternStr) {
-        if (patternStr.trim().isEmpty() || patternStr.startsWith("#")) {
-            return false;
+    public static String toAnchoredRegex(String patternStr) {
+        return "^" + convertToRegex(patternStr) + "(\\.zip)?$";
+    }
+
+    /**
+     * Returns the shared compiled form of a pattern, or null if it is empty, a comment or invalid.
+     */
+    public static CompiledShaderPattern compilePattern(String patternStr) {
+        if (patternStr == null || patternStr.trim().isEmpty() || patternStr.startsWith("#")) {
+            return null;
         }
-        
+        return ShaderPatternCache.get(patternStr);
+    }
+
+    /**
+     * Compiles a pattern without consulting the cache. Used by ShaderPatternCache on a miss.
+     */
+    static CompiledShaderPattern compile(String patternStr) {
         try {
-            // Convert the pattern to regex
-            String regexPattern = convertToRegex(patternStr);
-            
-            // Add the optional .zip extension
-            String finalPattern = "^" + regexPattern + "(\\.zip)?$";
-            
-            // Compile and test the pattern
+            String finalPattern = toAnchoredRegex(patternStr);
+            // Always compile with java.util.regex first so syntax errors are reported the usual way
             Pattern pattern = Pattern.compile(finalPattern, Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(text);
-            
-            return matcher.matches();
+
+            for (PatternEngine engine : ENGINES) {
+                PatternEngine.RegexMatcher matcher = engine == JdkPatternEngine.INSTANCE
+                    ? JdkPatternEngine.wrap(pattern)
+                    : engine.compile(finalPattern, true);
+                if (matcher != null) {
+                    logDebug("Pattern '" + patternStr + "' uses the " + engine.getName() + " engine");
+                    return new CompiledShaderPattern(patternStr, finalPattern, pattern, engine, matcher);
+                }
+            }
+            return null;
         } catch (PatternSyntaxException e) {
             String errorMsg = "Invalid pattern: " + patternStr + " - " + e.getMessage();
             IrisShaderFolder.LOGGER.error(errorMsg);
             if (IrisShaderFolder.debugLoggingEnabled) {
                 IrisShaderFolder.LOGGER.debug("ERROR: " + errorMsg);
             }
-            return false;
+            return null;
         }
     }
+
+    /**
+     * Checks if a string matches a pattern, considering .zip extension.
+     */
+    public static boolean matchesPattern(String text, String patternStr) {
+        return matchesPattern(text, compilePattern(patternStr));
+    }
+
+    /**
+     * Checks if a string matches an already compiled pattern.
+     */
+    public static boolean matchesPattern(String text, CompiledShaderPattern pattern) {
+        return pattern != null && pattern.matches(text);
+    }
     
     /**
      * Helper method to log debug information conditionally.
@@ -0,0 +1,134 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks LinearPatternEngine against java.util.regex: whenever the linear engine accepts an
+ * expression, both must give the same full-match answer for every input.
+ */
+class LinearPatternEngineTest {
+    private static final String EMOJI = "😀";
+    private static final String[] INPUT_PARTS = {
+        "a", "b", "A", "B", "1", " ", "-", "_", ".", "\n", "\r", EMOJI, "é", "\uD83D"
+    };
+    private static final String[] ATOMS = {
+        "a", "b", "A", "1", " ", "-", ".", "[ab]", "[^a]", "[a-c1]", "[^\\d]", "\\w", "\\W", "\\d", "\\s",
+        "\\.", "\\Qa.\\E", EMOJI, "[" + EMOJI + "b]", "[^" + EMOJI + "]", "\\x41", "\\u00e9"
+    };
+    private static final String[] QUANTIFIERS = {
+        "*", "+", "?", "{2}", "{0,2}", "{1,}", "*?", "+?", "??", "{1,2}?"
+    };
+
+    @Test
+    void stepsBySupplementaryCharacters() {
+        String regex = "^\\QShader \\E.(\\.zip)?$";
+        assertSameAnswers(regex, false, "Shader " + EMOJI, "Shader " + EMOJI + ".zip", "Shader ab", "Shader ");
+        assertSameAnswers("[^a]", false, EMOJI, "\uD83D", "a");
+        assertSameAnswers("\\Q" + EMOJI + "\\E?b", false, "b", EMOJI + "b", "\uD83Db");
+        assertSameAnswers("[" + EMOJI + "-🙏]+", false, EMOJI, "🙏", "🙐", "a");
+        assertTrue(LinearPatternEngine.INSTANCE.compile(regex, false).matches("Shader " + EMOJI));
+    }
+
+    @Test
+    void leavesStackedQuantifiersToTheJdk() {
+        assertNull(LinearPatternEngine.INSTANCE.compile("a{2}{0,2}", false));
+        assertNull(LinearPatternEngine.INSTANCE.compile("\\w+.{2}{0,2}", false));
+        assertNull(LinearPatternEngine.INSTANCE.compile("(ab)?*", false));
+        assertNotNull(LinearPatternEngine.INSTANCE.compile("a{2}?b*?", false));
+    }
+
+    @Test
+    void leavesEscapedSurrogatesToTheJdk() {
+        assertNull(LinearPatternEngine.INSTANCE.compile("\\ud83d\\ude00", false));
+    }
+
+    @Test
+    void matchesLikeJavaUtilRegex() {
+        Random random = new Random(20240117L);
+        int compared = 0;
+        for (int i = 0; i < 20000; i++) {
+            String regex = randomRegex(random, 3);
+            boolean caseInsensitive = random.nextInt(4) == 0;
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(regex, caseInsensitive ? Pattern.CASE_INSENSITIVE : 0);
+            } catch (PatternSyntaxException e) {
+                continue;
+            }
+            PatternEngine.RegexMatcher linear = LinearPatternEngine.INSTANCE.compile(regex, caseInsensitive);
+            if (linear == null) {
+                continue;
+            }
+            for (String input : randomInputs(random)) {
+                assertEquals(pattern.matcher(input).matches(), linear.matches(input),
+                    () -> "regex " + regex + " (case insensitive " + caseInsensitive + ") on '" + input + "'");
+            }
+            compared++;
+        }
+        assertTrue(compared > 10000, "only " + compared + " expressions were supported");
+    }
+
+    private static void assertSameAnswers(String regex, boolean caseInsensitive, String... inputs) {
+        Pattern pattern = Pattern.compile(regex, caseInsensitive ? Pattern.CASE_INSENSITIVE : 0);
+        PatternEngine.RegexMatcher linear = LinearPatternEngine.INSTANCE.compile(regex, caseInsensitive);
+        assertNotNull(linear, regex);
+        for (String input : inputs) {
+            assertEquals(pattern.matcher(input).matches(), linear.matches(input), regex + " on '" + input + "'");
+        }
+    }
+
+    private static String randomRegex(Random random, int depth) {
+        StringBuilder regex = new StringBuilder();
+        if (depth == 3 && random.nextInt(4) == 0) {
+            regex.append('^');
+        }
+        int items = 1 + random.nextInt(4);
+        for (int i = 0; i < items; i++) {
+            int kind = random.nextInt(10);
+            if (depth > 0 && kind == 0) {
+                regex.append('(').append(randomRegex(random, depth - 1)).append('|')
+                    .append(randomRegex(random, depth - 1)).append(')');
+            } else if (depth > 0 && kind == 1) {
+                regex.append("(?:").append(randomRegex(random, depth - 1)).append(')');
+            } else {
+                regex.append(ATOMS[random.nextInt(ATOMS.length)]);
+            }
+            if (random.nextInt(3) == 0) {
+                regex.append(QUANTIFIERS[random.nextInt(QUANTIFIERS.length)]);
+                if (random.nextInt(8) == 0) {
+                    // Stacked quantifiers must either match the same or be left to the JDK
+                    regex.append(QUANTIFIERS[random.nextInt(QUANTIFIERS.length)]);
+                }
+            }
+        }
+        if (depth == 3 && random.nextInt(4) == 0) {
+            regex.append('$');
+        }
+        return regex.toString();
+    }
+
+    private static List<String> randomInputs(Random random) {
+        List<String> inputs = new ArrayList<>();
+        inputs.add("");
+        for (int i = 0; i < 30; i++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(7);
+            for (int j = 0; j < length; j++) {
+                input.append(INPUT_PARTS[random.nextInt(INPUT_PARTS.length)]);
+            }
+            inputs.add(input.toString());
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,91 @@
+package com.spaceagle17.iris_shader_folder.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PackMetadataReaderTest {
+    private static final String PACK_JSON = "{\"shaderDescription\": \"Soft shadows\"}";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsDescriptionFromZip() throws IOException {
+        Path zip = writeZip("pack.zip", "shaders/pack.json", null);
+
+        PackMetadataReader.PackMetadata metadata = PackMetadataReader.readFromZip(zip);
+        assertEquals("Soft shadows", metadata.getDescription());
+        assertEquals("", metadata.getRootFolder());
+    }
+
+    @Test
+    void readsDescriptionFromNestedFolder() throws IOException {
+        Path zip = writeZip("pack.zip", "MyPack/shaders/pack.json", null);
+
+        PackMetadataReader.PackMetadata metadata = PackMetadataReader.readFromZip(zip);
+        assertEquals("Soft shadows", metadata.getDescription());
+        assertEquals("MyPack", metadata.getRootFolder());
+    }
+
+    @Test
+    void readsDescriptionFromZipWithComment() throws IOException {
+        Path zip = writeZip("pack.zip", "shaders/pack.json", "Packed by hand");
+
+        assertEquals("Soft shadows", PackMetadataReader.readFromZip(zip).getDescription());
+    }
+
+    @Test
+    void readsDescriptionFromZipWithTrailingBytes() throws IOException {
+        Path zip = writeZip("pack.zip", "shaders/pack.json", null);
+        Files.write(zip, new byte[1000], StandardOpenOption.APPEND);
+
+        assertEquals("Soft shadows", PackMetadataReader.readFromZip(zip).getDescription());
+    }
+
+    @Test
+    void readsDescriptionFromZipWithCommentAndTrailingBytes() throws IOException {
+        Path zip = writeZip("pack.zip", "shaders/pack.json", "Packed by hand");
+        Files.write(zip, "signature block".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertEquals("Soft shadows", PackMetadataReader.readFromZip(zip).getDescription());
+    }
+
+    @Test
+    void rejectsFileWithoutEndRecord() throws IOException {
+        Path file = tempDir.resolve("broken.zip");
+        Files.write(file, new byte[4096]);
+
+        assertThrows(ZipException.class, () -> PackMetadataReader.readFromZip(file));
+    }
+
+    private Path writeZip(String fileName, String entryName, String comment) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            out.putNextEntry(new ZipEntry("shaders/world0/composite.fsh"));
+            out.write("void main() {}".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry(entryName));
+            out.write(PACK_JSON.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            if (comment != null) {
+                out.setComment(comment);
+            }
+        }
+        Path zip = tempDir.resolve(fileName);
+        Files.write(zip, bytes.toByteArray());
+        return zip;
+    }
+}